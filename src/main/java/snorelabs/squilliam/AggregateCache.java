@@ -0,0 +1,482 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.Reference;
+import snorelabs.squilliam.core.Relation;
+import snorelabs.squilliam.core.SchemaRegistry;
+import snorelabs.squilliam.core.StreamPatcher;
+import snorelabs.squilliam.core.TargetDescriber;
+import snorelabs.squilliam.core.TransformTarget;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static snorelabs.squilliam.core.Predicates.isInDynamo;
+
+/**
+ * A read-through cache of loaded aggregates, keyed by target class and QueryRequest (loads by key
+ * derive the same request every time, so they hit the same entries). Entries are weighed by the
+ * number of Dynamo items in the aggregate, and the least recently used are evicted once the total
+ * weight goes over the maximum. Entries also expire a fixed time after they were loaded.
+ * ============================================================================================
+ * get(class, request):
+ *     entry = entries[class, request]
+ *     if entry is expired: evict(entry)
+ * put(class, request, aggregate, generation):
+ *     if any invalidation since generation touches partitions(aggregate): return
+ *     entries[class, request] = (aggregate, weight = items(aggregate), partitions(aggregate))
+ *     while total_weight > max_weight: evict(least_recently_used)
+ * invalidate(table, root):                          # after every write through the client
+ *     drop entries sharing a partition with root
+ * apply(table, record):                             # for writes seen on the table's stream
+ *     patch entries in the record's partition
+ * ============================================================================================
+ * The partitions of an aggregate are those of its own items plus those of the items its
+ * references were resolved to, so writing a referenced item drops the aggregates holding it.
+ * Loads read the generation before querying and hand it back to put, so a write invalidating
+ * the partition while the load is in flight keeps its (possibly stale) result out of the cache.
+ * Cached aggregates are shared by every caller which hits them, so they must be treated as
+ * read-only. Tracked loads bypass the cache for that reason. One cache may be shared by several
+ * clients of the same tables.
+ */
+public class AggregateCache {
+    // Invalidations remembered for loads in flight, loads which started before the oldest of them
+    // aren't cached at all
+    private static final int MAX_RECENT_INVALIDATIONS = 1_000;
+
+    private final long maxWeight;
+    private final Duration ttl;
+    private final Clock clock;
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<Invalidation> recent = new ArrayDeque<>();
+    private long generation;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private AggregateCache(Builder builder) {
+        if (builder.maxWeight < 1) {
+            throw new IllegalArgumentException("Max weight must be positive");
+        }
+        this.maxWeight = builder.maxWeight;
+        this.ttl = Objects.requireNonNull(builder.ttl);
+        this.clock = Objects.requireNonNull(builder.clock);
+    }
+
+    /**
+     * Gets the cached aggregate of the target class loaded by the request, if it hasn't expired.
+     */
+    public synchronized <T> Optional<T> get(Class<T> targetClass, QueryRequest request) {
+        List<Object> key = key(targetClass, request);
+        Entry entry = entries.get(key);
+        if (Objects.nonNull(entry) && entry.isExpired(clock.instant())) {
+            remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (Objects.isNull(entry)) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(targetClass.cast(entry.aggregate));
+    }
+
+    /**
+     * Counts the invalidations so far. A load reads it before querying and passes it to put.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the aggregate loaded by the request, whatever was invalidated while it loaded.
+     */
+    public <T> void put(Class<T> targetClass, QueryRequest request, T aggregate) {
+        put(targetClass, request, aggregate, Long.MAX_VALUE);
+    }
+
+    /**
+     * Caches the aggregate loaded by the request, unless one of its partitions was invalidated
+     * after the given generation (see getGeneration). Aggregates heavier than the whole cache
+     * aren't kept.
+     */
+    public <T> void put(Class<T> targetClass, QueryRequest request, T aggregate,
+                        long generation) {
+        Footprint footprint = footprint(aggregate, request.tableName());
+        synchronized (this) {
+            Entry entry = new Entry(key(targetClass, request), aggregate, footprint,
+                    clock.instant().plus(ttl));
+            if (invalidatedSince(generation, entry)) {
+                return;
+            }
+            put(entry);
+        }
+    }
+
+    private void put(Entry entry) {
+        remove(entry.key);
+        if (entry.footprint.weight > maxWeight) {
+            return;
+        }
+        entries.put(entry.key, entry);
+        weight += entry.footprint.weight;
+        evictOverweight();
+    }
+
+    private boolean invalidatedSince(long since, Entry entry) {
+        if (since < generation - recent.size()) {
+            // Older invalidations are forgotten, any of them may have touched the aggregate
+            return true;
+        }
+        Iterator<Invalidation> newest = recent.descendingIterator();
+        while (newest.hasNext()) {
+            Invalidation invalidation = newest.next();
+            if (invalidation.generation <= since) {
+                return false;
+            }
+            if (invalidation.predicate.test(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the entry of the target class loaded by the request.
+     */
+    public void invalidate(Class<?> targetClass, QueryRequest request) {
+        List<Object> key = key(targetClass, request);
+        invalidateIf(entry -> entry.key.equals(key));
+    }
+
+    /**
+     * Drops every entry which shares a partition with the root, or refers to an item in one,
+     * called by the clients after they write or delete the root.
+     */
+    public void invalidate(Object root, String tableName) {
+        Set<List<Object>> partitions = footprint(root, tableName).partitions;
+        invalidateIf(entry -> entry.footprint.touches(partitions));
+    }
+
+    /**
+     * Applies a DynamoDB Streams record of the table to the cached aggregates of its partition
+     * (see StreamPatcher), so they stay fresh without being loaded again. The patch is made to a
+     * copy which then replaces the entry, aggregates already returned are left as they were.
+     * Aggregates which can't be patched, i.e. lists of items, those loaded by a request reading
+     * only part of the partition (the record may be for an item it would never return) or those
+     * the patcher rejects the record for, are dropped instead, as is an aggregate whose root item
+     * was removed or one referring to an item of the record's partition. Patched aggregates keep
+     * their expiry.
+     */
+    public synchronized void apply(String tableName, String itemAttrName, Record record) {
+        Set<List<Object>> keys = new HashSet<>();
+        record.dynamodb().keys().forEach((name, value) ->
+                keys.add(List.of(tableName, name, value)));
+        recordInvalidation(entry -> entry.footprint.touches(keys));
+        Iterator<Map.Entry<List<Object>, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<List<Object>, Entry> cached = iterator.next();
+            Entry entry = cached.getValue();
+            if (!entry.footprint.touches(keys)) {
+                continue;
+            }
+            Object patched = null;
+            if (!(entry.aggregate instanceof List<?>) && entry.footprint.owns(keys)
+                    && coversPartition(entry.request())) {
+                try {
+                    patched = patch(entry.aggregate, itemAttrName, record);
+                } catch (RuntimeException e) {
+                    // Dropping the entry is always safe, the next load reads the partition again
+                }
+            }
+            weight -= entry.footprint.weight;
+            if (Objects.isNull(patched)) {
+                iterator.remove();
+                invalidations++;
+                continue;
+            }
+            Footprint footprint = footprint(patched, entry.tableName());
+            cached.setValue(new Entry(entry.key, patched, footprint, entry.expiresAt));
+            weight += footprint.weight;
+        }
+        evictOverweight();
+    }
+
+    /**
+     * Whether the request reads every item of the partition: nothing narrows it down beyond the
+     * partition key, and it isn't on an index or cut short.
+     */
+    private static boolean coversPartition(QueryRequest request) {
+        String keyCondition = request.keyConditionExpression();
+        return Objects.isNull(request.filterExpression())
+                && Objects.isNull(request.indexName())
+                && Objects.isNull(request.limit())
+                && !request.hasExclusiveStartKey()
+                && !request.hasQueryFilter()
+                && (!request.hasKeyConditions() || request.keyConditions().size() <= 1)
+                && (Objects.isNull(keyCondition) || !keyCondition.toUpperCase().contains(" AND "));
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache is back under its maximum weight.
+     */
+    private void evictOverweight() {
+        Iterator<Map.Entry<List<Object>, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.footprint.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Patches a copy of the aggregate: the cached instance may already have been handed out, and
+     * readers don't take the cache's lock, so it is never changed once it is cached.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T patch(T aggregate, String itemAttrName, Record record) {
+        Class<T> model = (Class<T>) aggregate.getClass();
+        return new StreamPatcher<>(itemAttrName, TargetDescriber.describe(model))
+                .apply(AggregateSnapshot.copy(aggregate, itemAttrName), record);
+    }
+
+    /**
+     * Drops every entry of the table, for writes whose partitions aren't known up front.
+     */
+    public void invalidateTable(String tableName) {
+        invalidateIf(entry -> entry.tableName().equals(tableName)
+                || entry.footprint.refersTo(tableName));
+    }
+
+    public void invalidateAll() {
+        invalidateIf(entry -> true);
+    }
+
+    private synchronized void invalidateIf(Predicate<Entry> predicate) {
+        recordInvalidation(predicate);
+        Iterator<Entry> values = entries.values().iterator();
+        while (values.hasNext()) {
+            Entry entry = values.next();
+            if (predicate.test(entry)) {
+                values.remove();
+                weight -= entry.footprint.weight;
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Remembers the invalidation for the loads in flight, see put.
+     */
+    private void recordInvalidation(Predicate<Entry> predicate) {
+        recent.addLast(new Invalidation(++generation, predicate));
+        if (recent.size() > MAX_RECENT_INVALIDATIONS) {
+            recent.removeFirst();
+        }
+    }
+
+    private static List<Object> key(Class<?> targetClass, QueryRequest request) {
+        return List.of(targetClass, request);
+    }
+
+    private Entry remove(List<Object> key) {
+        Entry entry = entries.remove(key);
+        if (Objects.nonNull(entry)) {
+            weight -= entry.footprint.weight;
+        }
+        return entry;
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, invalidations);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Total weight of the cached aggregates, in Dynamo items.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Counts the items of the aggregate and collects the partitions, as (table, partition key,
+     * value), they live under, as well as those of the items its references point to.
+     */
+    private static Footprint footprint(Object root, String tableName) {
+        Set<String> partitionKeys = partitionKeys(root);
+        Set<List<Object>> partitions = new HashSet<>();
+        long items = 0;
+        Iterator<Map<String, AttributeValue>> iterator = WriteBatches.items(root);
+        while (iterator.hasNext()) {
+            Map<String, AttributeValue> item = iterator.next();
+            items++;
+            for (String name : partitionKeys) {
+                AttributeValue value = item.get(name);
+                if (Objects.nonNull(value)) {
+                    partitions.add(List.of(tableName, name, value));
+                }
+            }
+        }
+        Set<List<Object>> referenced = new HashSet<>();
+        for (Object owner : root instanceof List<?> list ? list : List.of(root)) {
+            addReferenced(referenced, owner, tableName);
+        }
+        return new Footprint(Math.max(items, 1), partitions, referenced);
+    }
+
+    private static void addReferenced(Set<List<Object>> referenced, Object owner,
+                                      String tableName) {
+        for (Reference reference : TargetDescriber.describe(owner.getClass()).getReferences()) {
+            Map<String, AttributeValue> key = reference.key(owner);
+            if (key.isEmpty()) {
+                continue;
+            }
+            String name = SchemaRegistry.global().schema(reference.getModel()).tableMetadata()
+                    .primaryPartitionKey();
+            referenced.add(List.of(Objects.requireNonNullElse(reference.getTable(), tableName),
+                    name, key.get(name)));
+        }
+    }
+
+    private static Set<String> partitionKeys(Object root) {
+        Set<String> names = new LinkedHashSet<>();
+        if (root instanceof List<?> list) {
+            list.stream()
+                    .map(Object::getClass)
+                    .distinct()
+                    .forEach(model -> addPartitionKey(names, model));
+            return names;
+        }
+        TransformTarget<?> target = TargetDescriber.describe(root.getClass());
+        addPartitionKey(names, target.getModel());
+        for (Relation relation : target.getAllRelations()) {
+            addPartitionKey(names, relation.getModel());
+        }
+        return names;
+    }
+
+    private static void addPartitionKey(Set<String> names, Class<?> model) {
+        if (isInDynamo(model)) {
+            names.add(SchemaRegistry.global().schema(model).tableMetadata().primaryPartitionKey());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private long maxWeight = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+        private Clock clock = Clock.systemUTC();
+
+        /**
+         * Most Dynamo items, across all cached aggregates, the cache holds on to.
+         */
+        public Builder maxWeight(long maxWeight) {
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * How long an aggregate is served from the cache after it was loaded.
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public AggregateCache build() {
+            return new AggregateCache(this);
+        }
+    }
+
+    private static class Footprint {
+        private final long weight;
+        private final Set<List<Object>> partitions;
+        private final Set<List<Object>> referenced;
+
+        private Footprint(long weight, Set<List<Object>> partitions,
+                          Set<List<Object>> referenced) {
+            this.weight = weight;
+            this.partitions = partitions;
+            this.referenced = referenced;
+        }
+
+        private boolean owns(Set<List<Object>> written) {
+            return partitions.stream().anyMatch(written::contains);
+        }
+
+        private boolean touches(Set<List<Object>> written) {
+            return owns(written) || referenced.stream().anyMatch(written::contains);
+        }
+
+        private boolean refersTo(String tableName) {
+            return referenced.stream().anyMatch(partition -> partition.get(0).equals(tableName));
+        }
+    }
+
+    private static class Entry {
+        private final List<Object> key;
+        private final Object aggregate;
+        private final Footprint footprint;
+        private final Instant expiresAt;
+
+        private Entry(List<Object> key, Object aggregate, Footprint footprint, Instant expiresAt) {
+            this.key = key;
+            this.aggregate = aggregate;
+            this.footprint = footprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private QueryRequest request() {
+            return (QueryRequest) key.get(1);
+        }
+
+        private String tableName() {
+            return request().tableName();
+        }
+
+        private boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    private static class Invalidation {
+        private final long generation;
+        private final Predicate<Entry> predicate;
+
+        private Invalidation(long generation, Predicate<Entry> predicate) {
+            this.generation = generation;
+            this.predicate = predicate;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.AggregateMapper;
+import snorelabs.squilliam.core.AggregateMappers;
+import snorelabs.squilliam.core.PartitionAccumulator;
+import snorelabs.squilliam.core.Reference;
+import snorelabs.squilliam.core.TargetDescriber;
+import snorelabs.squilliam.core.TransformTarget;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The Dynamo form of a loaded root: its own items and the items its references were resolved to,
+ * which aren't part of the aggregate's items. Copies are rebuilt from the items as if they had
+ * just been loaded, so they share no instance with the root or with each other. Used to hand out
+ * copies of shared loads, and to patch cached aggregates without touching the instances readers
+ * already hold.
+ */
+class AggregateSnapshot {
+    private final List<Map<String, AttributeValue>> items;
+    private final Map<Reference, Map<String, AttributeValue>> references;
+
+    private AggregateSnapshot(List<Map<String, AttributeValue>> items,
+                              Map<Reference, Map<String, AttributeValue>> references) {
+        this.items = items;
+        this.references = references;
+    }
+
+    static AggregateSnapshot of(Object root) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        WriteBatches.items(root).forEachRemaining(items::add);
+        Map<Reference, Map<String, AttributeValue>> references = new HashMap<>();
+        for (Reference reference : TargetDescriber.describe(root.getClass()).getReferences()) {
+            Map<String, AttributeValue> item = reference.item(root);
+            if (Objects.nonNull(item)) {
+                references.put(reference, item);
+            }
+        }
+        return new AggregateSnapshot(items, references);
+    }
+
+    /**
+     * Copies the root through its snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T copy(T root, String itemAttrName) {
+        return of(root).copy((Class<T>) root.getClass(), itemAttrName);
+    }
+
+    /**
+     * Rebuilds the aggregate from the items, as if it had just been loaded.
+     */
+    <T> T copy(Class<T> classTarget, String itemAttrName) {
+        TransformTarget<T> target = TargetDescriber.describe(classTarget);
+        Optional<AggregateMapper<T>> mapper = AggregateMappers.find(classTarget);
+        T copy;
+        if (mapper.isPresent()) {
+            AggregateMapper.Accumulator<T> accumulator = mapper.get().accumulator();
+            accumulator.acceptAll(itemAttrName, items);
+            copy = accumulator.build();
+        } else {
+            PartitionAccumulator<T> accumulator = new PartitionAccumulator<>(itemAttrName, target);
+            accumulator.acceptAll(items);
+            copy = accumulator.build();
+        }
+        references.forEach((reference, item) -> reference.set(copy, item));
+        return copy;
+    }
+}
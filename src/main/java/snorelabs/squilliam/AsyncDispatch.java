@@ -0,0 +1,115 @@
+package snorelabs.squilliam;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Starts an async task per input keeping at most a fixed number in flight, the async counterpart
+ * of the BatchWriter's dispatch loop. An input is only pulled from the iterator when a slot frees
+ * up, so inputs (e.g. write batches) are never created much faster than their tasks complete.
+ * A failed task fails the dispatch: tasks already in flight are left to finish and no more are
+ * started.
+ * ============================================================================================
+ * drain():
+ *     while in_flight < max_in_flight and inputs.has_next():
+ *         in_flight++
+ *         task(inputs.next()).on_complete(result -> in_flight--; drain())
+ *     if in_flight == 0 and !inputs.has_next():
+ *         complete(results)
+ * ============================================================================================
+ * Only one thread drains at a time, a completion arriving while another thread drains just asks
+ * it to go round again, so tasks completing right away don't recurse.
+ */
+class AsyncDispatch<E, T> {
+    private final Iterator<E> inputs;
+    private final Function<? super E, CompletableFuture<T>> task;
+    private final int maxInFlight;
+    private final CompletableFuture<List<T>> done = new CompletableFuture<>();
+    private final List<T> results = new ArrayList<>();
+    private final AtomicInteger drains = new AtomicInteger();
+    private int inFlight;
+
+    private AsyncDispatch(Iterator<E> inputs, Function<? super E, CompletableFuture<T>> task,
+                          int maxInFlight) {
+        this.inputs = inputs;
+        this.task = task;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Runs the task for every input, completing with their results in the order of the inputs.
+     */
+    static <E, T> CompletableFuture<List<T>> all(Iterator<E> inputs,
+                                                 Function<? super E, CompletableFuture<T>> task,
+                                                 int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be positive");
+        }
+        AsyncDispatch<E, T> dispatch = new AsyncDispatch<>(inputs, task, maxInFlight);
+        dispatch.drain();
+        return dispatch.done;
+    }
+
+    private void drain() {
+        if (drains.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            startAvailable();
+        } while (drains.decrementAndGet() != 0);
+    }
+
+    private void startAvailable() {
+        while (!done.isDone()) {
+            int index;
+            synchronized (this) {
+                if (inFlight >= maxInFlight) {
+                    return;
+                }
+                if (!hasNext()) {
+                    if (inFlight == 0) {
+                        done.complete(results);
+                    }
+                    return;
+                }
+                index = results.size();
+                results.add(null);
+                inFlight++;
+            }
+            start(index);
+        }
+    }
+
+    private boolean hasNext() {
+        try {
+            return inputs.hasNext();
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    private void start(int index) {
+        CompletableFuture<T> sent;
+        try {
+            sent = task.apply(inputs.next());
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((result, e) -> {
+            synchronized (this) {
+                inFlight--;
+                results.set(index, result);
+            }
+            if (Objects.nonNull(e)) {
+                done.completeExceptionally(e);
+            }
+            drain();
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Sends write batches concurrently on an executor, keeping at most a fixed number of batches in
+ * flight. The calling thread only dispatches: it pulls requests into the next batch when a slot
+ * frees up, so batches are never created much faster than they can be sent. Requests Dynamo
+ * hands back as unprocessed go to the front of the line for a later batch, and that batch backs
+ * off according to the retry policy before it is sent.
+ */
+class BatchWriter {
+    static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final RetryPolicy retryPolicy;
+
+    BatchWriter(DynamoDbClient dynamoDbClient, Executor executor, int maxInFlight,
+                RetryPolicy retryPolicy) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight batches must be positive");
+        }
+        this.dynamoDbClient = dynamoDbClient;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Writes every request to the table. Requests the retry policy gave up on are reported in the
+     * result, a failed batch request fails the write (batches already in flight are left to
+     * finish).
+     */
+    WriteResult write(String tableName, Iterator<WriteRequest> writes) {
+        CompletionService<SentBatch> completions = new ExecutorCompletionService<>(executor);
+        Deque<PendingWrite> retries = new ArrayDeque<>();
+        List<BatchWriteItemResponse> responses = new ArrayList<>();
+        List<WriteRequest> unprocessed = new ArrayList<>();
+        int inFlight = 0;
+        while (writes.hasNext() || !retries.isEmpty() || inFlight > 0) {
+            while (inFlight < maxInFlight && (writes.hasNext() || !retries.isEmpty())) {
+                List<PendingWrite> batch = nextBatch(writes, retries);
+                completions.submit(() -> send(tableName, batch));
+                inFlight++;
+            }
+            SentBatch sent = take(completions);
+            inFlight--;
+            responses.add(sent.response);
+            for (PendingWrite write : sent.unprocessed) {
+                if (retryPolicy.canRetry(write.attempts)) {
+                    retries.add(write);
+                } else {
+                    unprocessed.add(write.request);
+                }
+            }
+        }
+        return new WriteResult(responses, unprocessed);
+    }
+
+    /**
+     * Fills a batch, retries first so they aren't starved by a long stream of fresh requests.
+     */
+    private static List<PendingWrite> nextBatch(Iterator<WriteRequest> writes,
+                                                Deque<PendingWrite> retries) {
+        List<PendingWrite> batch = new ArrayList<>(WriteBatches.DYNAMO_BATCH_SIZE);
+        while (batch.size() < WriteBatches.DYNAMO_BATCH_SIZE && !retries.isEmpty()) {
+            batch.add(retries.poll());
+        }
+        while (batch.size() < WriteBatches.DYNAMO_BATCH_SIZE && writes.hasNext()) {
+            batch.add(new PendingWrite(writes.next(), 0));
+        }
+        return batch;
+    }
+
+    /**
+     * Sends a batch after backing off for its most attempted request, and matches the unprocessed
+     * requests in the response back up with their attempt counts.
+     */
+    private SentBatch send(String tableName, List<PendingWrite> batch) throws InterruptedException {
+        Map<WriteRequest, PendingWrite> pending = new HashMap<>();
+        List<WriteRequest> requests = new ArrayList<>(batch.size());
+        int attempt = 1;
+        for (PendingWrite write : batch) {
+            pending.put(write.request, write);
+            requests.add(write.request);
+            attempt = Math.max(attempt, write.attempts + 1);
+        }
+        Duration delay = retryPolicy.delay(attempt);
+        if (!delay.isZero()) {
+            Thread.sleep(delay.toMillis());
+        }
+
+        BatchWriteItemResponse response =
+                dynamoDbClient.batchWriteItem(WriteBatches.request(tableName, requests));
+
+        List<PendingWrite> unprocessed = new ArrayList<>();
+        for (WriteRequest request : WriteBatches.unprocessed(response, tableName)) {
+            PendingWrite write = pending.get(request);
+            int attempts = write == null ? attempt : write.attempts + 1;
+            unprocessed.add(new PendingWrite(request, attempts));
+        }
+        return new SentBatch(response, unprocessed);
+    }
+
+    private static SentBatch take(CompletionService<SentBatch> completions) {
+        try {
+            Future<SentBatch> done = completions.take();
+            return done.get();
+        } catch (ExecutionException e) {
+            throw Concurrency.unwrap(e);
+        } catch (InterruptedException e) {
+            throw Concurrency.interrupted(e);
+        }
+    }
+
+    private static class PendingWrite {
+        private final WriteRequest request;
+        private final int attempts;
+
+        private PendingWrite(WriteRequest request, int attempts) {
+            this.request = request;
+            this.attempts = attempts;
+        }
+    }
+
+    private static class SentBatch {
+        private final BatchWriteItemResponse response;
+        private final List<PendingWrite> unprocessed;
+
+        private SentBatch(BatchWriteItemResponse response, List<PendingWrite> unprocessed) {
+            this.response = response;
+            this.unprocessed = unprocessed;
+        }
+    }
+}
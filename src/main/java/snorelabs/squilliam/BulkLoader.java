@@ -0,0 +1,61 @@
+package snorelabs.squilliam;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs the loads of a bulk load concurrently on an executor, keeping at most a fixed number in
+ * flight. The calling thread only dispatches, waiting for a slot before starting each load.
+ */
+class BulkLoader {
+    static final int DEFAULT_MAX_CONCURRENT_LOADS = 16;
+
+    private final Executor executor;
+    private final int maxConcurrent;
+
+    BulkLoader(Executor executor, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Max concurrent loads must be positive");
+        }
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Loads every key, returning the results in the order of the keys. A load which throws is
+     * reported as a failed result.
+     */
+    <T> List<LoadResult<T>> load(List<?> keys, Function<Object, T> loader) {
+        Semaphore slots = new Semaphore(maxConcurrent);
+        List<CompletableFuture<LoadResult<T>>> loads = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            acquire(slots);
+            loads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return LoadResult.loaded(key, loader.apply(key));
+                } catch (RuntimeException e) {
+                    return LoadResult.<T>failed(key, e);
+                } finally {
+                    slots.release();
+                }
+            }, executor));
+        }
+        List<LoadResult<T>> results = new ArrayList<>(loads.size());
+        for (CompletableFuture<LoadResult<T>> load : loads) {
+            results.add(load.join());
+        }
+        return results;
+    }
+
+    private static void acquire(Semaphore slots) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            throw Concurrency.interrupted(e);
+        }
+    }
+}
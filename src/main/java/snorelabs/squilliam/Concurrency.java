@@ -0,0 +1,72 @@
+package snorelabs.squilliam;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors and exception plumbing shared by everything in the clients that fans work out.
+ */
+class Concurrency {
+    private static final ExecutorService DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    /**
+     * The executor used when the client isn't given one. Requests spend nearly all their time
+     * waiting on the network, which is exactly what virtual threads are for, so we use them on
+     * runtimes that have them. Otherwise we fall back to a cached pool of daemon threads.
+     */
+    static ExecutorService defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(daemonThreads());
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "squilliam-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Unwraps the failure of a task or a future (or the exception a future's callback was handed)
+     * so callers see the exception Dynamo threw.
+     */
+    static RuntimeException unwrap(Throwable e) {
+        Throwable cause = (e instanceof ExecutionException || e instanceof CompletionException)
+                && e.getCause() != null
+                ? e.getCause()
+                : e;
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new CompletionException(cause);
+    }
+
+    /**
+     * Restores the interrupt and gives the caller something to throw.
+     */
+    static RuntimeException interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        CancellationException cancelled = new CancellationException("Interrupted");
+        cancelled.initCause(e);
+        return cancelled;
+    }
+}
@@ -0,0 +1,91 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.SchemaRegistry;
+import snorelabs.squilliam.core.TargetDescriber;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds the keys-only queries aggregate deletes page through, shared by the blocking and async
+ * clients.
+ */
+class Deletes {
+    /**
+     * Narrows the request down to the key attributes, so deleting a partition only ever reads
+     * (and holds) keys rather than whole items.
+     */
+    static QueryRequest keysOnly(QueryRequest request, List<String> keyNames) {
+        Map<String, String> names = new HashMap<>();
+        if (request.hasExpressionAttributeNames()
+                && Objects.nonNull(request.expressionAttributeNames())) {
+            names.putAll(request.expressionAttributeNames());
+        }
+        List<String> projection = new ArrayList<>();
+        for (int i = 0; i < keyNames.size(); i++) {
+            String placeholder = "#squilliamKey" + i;
+            names.put(placeholder, keyNames.get(i));
+            projection.add(placeholder);
+        }
+        return request.toBuilder()
+                .projectionExpression(String.join(", ", projection))
+                .expressionAttributeNames(names)
+                .select(Select.SPECIFIC_ATTRIBUTES)
+                .build();
+    }
+
+    /**
+     * Queries the whole partition of a root item, which is where its aggregate lives.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> QueryRequest partition(T root, String tableName) {
+        if (root instanceof List<?> || !TargetDescriber.describe(root.getClass()).isInDynamo()) {
+            throw new IllegalArgumentException("Only Dynamo item roots have a partition");
+        }
+        String partitionKey = keyNames(root.getClass()).get(0);
+        AttributeValue value = SchemaRegistry.global().schema((Class<T>) root.getClass())
+                .attributeValue(root, partitionKey);
+        return QueryRequest.builder()
+                .tableName(tableName)
+                .keyConditionExpression("#squilliamKey = :squilliamKey")
+                .expressionAttributeNames(Map.of("#squilliamKey", partitionKey))
+                .expressionAttributeValues(Map.of(":squilliamKey", value))
+                .build();
+    }
+
+    /**
+     * Partition key followed by the sort key, if the model has one.
+     */
+    static List<String> keyNames(Class<?> model) {
+        TableMetadata metadata = SchemaRegistry.global().schema(model).tableMetadata();
+        List<String> names = new ArrayList<>();
+        names.add(metadata.primaryPartitionKey());
+        metadata.primarySortKey().ifPresent(names::add);
+        return names;
+    }
+
+    /**
+     * Partition key followed by the sort key, if the table has one.
+     */
+    static List<String> keyNames(TableDescription table) {
+        List<String> names = new ArrayList<>();
+        for (KeySchemaElement element : table.keySchema()) {
+            if (element.keyType() == KeyType.HASH) {
+                names.add(0, element.attributeName());
+            } else {
+                names.add(element.attributeName());
+            }
+        }
+        return names;
+    }
+}
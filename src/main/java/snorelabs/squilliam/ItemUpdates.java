@@ -0,0 +1,64 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.ItemUpdate;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns modified items into UpdateItem requests, shared by the blocking and async clients.
+ */
+class ItemUpdates {
+    /**
+     * Builds an update which sets the changed attributes and removes the ones which are gone.
+     * Attribute names always go through placeholders, so reserved words are fine.
+     * ============================================================================================
+     * SET #a0 = :a0, #a1 = :a1 REMOVE #a2
+     */
+    static UpdateItemRequest request(String tableName, ItemUpdate update) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> sets = new ArrayList<>();
+        List<String> removes = new ArrayList<>();
+        for (Map.Entry<String, AttributeValue> attribute : update.getSet().entrySet()) {
+            String placeholder = "a" + names.size();
+            names.put("#" + placeholder, attribute.getKey());
+            values.put(":" + placeholder, attribute.getValue());
+            sets.add("#" + placeholder + " = :" + placeholder);
+        }
+        for (String attribute : update.getRemove()) {
+            String placeholder = "#a" + names.size();
+            names.put(placeholder, attribute);
+            removes.add(placeholder);
+        }
+
+        StringBuilder expression = new StringBuilder();
+        if (!sets.isEmpty()) {
+            expression.append("SET ").append(String.join(", ", sets));
+        }
+        if (!removes.isEmpty()) {
+            expression.append(sets.isEmpty() ? "" : " ")
+                    .append("REMOVE ").append(String.join(", ", removes));
+        }
+        UpdateItemRequest.Builder request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(update.getKey())
+                .updateExpression(expression.toString())
+                .expressionAttributeNames(names);
+        if (!values.isEmpty()) {
+            request.expressionAttributeValues(values);
+        }
+        return request.build();
+    }
+
+    /**
+     * An update with nothing to set or remove would be rejected by Dynamo.
+     */
+    static boolean isEmpty(ItemUpdate update) {
+        return update.getSet().isEmpty() && update.getRemove().isEmpty();
+    }
+}
@@ -0,0 +1,45 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.KeyCondition;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * Builds the queries for loads by key. The request for each target, table and kind of condition
+ * is compiled once, with everything but the key values (projection included), so a load only
+ * copies the template with its values.
+ */
+class KeyQueries {
+    private final BiFunction<QueryRequest, Class<?>, QueryRequest> finisher;
+    private final ConcurrentMap<List<Object>, QueryRequest> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param finisher - Applied to each template once it is compiled, e.g. to add a projection.
+     */
+    KeyQueries(BiFunction<QueryRequest, Class<?>, QueryRequest> finisher) {
+        this.finisher = finisher;
+    }
+
+    /**
+     * Gets the request for the partition of the target, narrowed down to the sort key prefix if
+     * there is one.
+     */
+    QueryRequest request(Class<?> targetClass, String tableName, Object partitionValue,
+                         String sortKeyPrefix) {
+        boolean prefixed = Objects.nonNull(sortKeyPrefix);
+        KeyCondition condition = KeyCondition.of(targetClass);
+        QueryRequest template = templates.computeIfAbsent(
+                List.of(targetClass, tableName, prefixed),
+                key -> finisher.apply(prefixed
+                        ? condition.prefix(tableName)
+                        : condition.partition(tableName), targetClass));
+        return template.toBuilder()
+                .expressionAttributeValues(condition.values(partitionValue, sortKeyPrefix))
+                .build();
+    }
+}
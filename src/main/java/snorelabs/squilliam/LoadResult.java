@@ -0,0 +1,46 @@
+package snorelabs.squilliam;
+
+import java.util.Objects;
+
+/**
+ * The outcome of loading one key of a bulk load: either the loaded aggregate or the exception
+ * which kept it from loading, so one bad key doesn't cost the rest of the batch.
+ */
+public class LoadResult<T> {
+    private final Object key;
+    private final T value;
+    private final RuntimeException error;
+
+    private LoadResult(Object key, T value, RuntimeException error) {
+        this.key = key;
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> LoadResult<T> loaded(Object key, T value) {
+        return new LoadResult<>(key, value, null);
+    }
+
+    public static <T> LoadResult<T> failed(Object key, RuntimeException error) {
+        return new LoadResult<>(key, null, error);
+    }
+
+    /**
+     * The partition key value or QueryRequest this result was loaded from.
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public RuntimeException getError() {
+        return error;
+    }
+
+    public boolean isLoaded() {
+        return Objects.isNull(error);
+    }
+}
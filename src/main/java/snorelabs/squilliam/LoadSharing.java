@@ -0,0 +1,22 @@
+package snorelabs.squilliam;
+
+/**
+ * What concurrent loads of the same aggregate (same QueryRequest and target class) do while one
+ * of them is already in flight.
+ */
+public enum LoadSharing {
+    /**
+     * Every load queries Dynamo on its own.
+     */
+    NONE,
+    /**
+     * Loads wait for the one in flight and all get the very same instance, which then must be
+     * treated as read-only.
+     */
+    SHARED,
+    /**
+     * Loads wait for the one in flight and each get their own copy, rebuilt from its items. Costs
+     * a transform per waiter but no reads.
+     */
+    COPIED
+}
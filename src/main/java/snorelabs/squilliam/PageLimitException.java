@@ -0,0 +1,28 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+public class PageLimitException extends RuntimeException {
+    private QueryRequest request;
+    private int pages;
+    private long items;
+
+    public PageLimitException(String msg, QueryRequest request, int pages, long items) {
+        super(msg);
+        this.request = request;
+        this.pages = pages;
+        this.items = items;
+    }
+
+    public QueryRequest getRequest() {
+        return request;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public long getItems() {
+        return items;
+    }
+}
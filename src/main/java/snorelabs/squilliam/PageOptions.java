@@ -0,0 +1,84 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.Objects;
+
+/**
+ * Controls how queries are paged. Squilliam follows LastEvaluatedKey until the partition is
+ * exhausted, the guards are there so that a runaway partition fails loudly instead of loading
+ * without bound.
+ */
+public class PageOptions {
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final Integer pageSize;
+    private final int maxPages;
+    private final int maxItems;
+
+    /**
+     * @param pageSize - Limit sent with each query, or null for Dynamo's 1 MB page. A Limit set
+     *                 on the request caps the whole query instead.
+     * @param maxPages - Most pages a single load may fetch.
+     * @param maxItems - Most items a single load may fetch.
+     */
+    public PageOptions(Integer pageSize, int maxPages, int maxItems) {
+        if (maxPages < 1 || maxItems < 1 || (pageSize != null && pageSize < 1)) {
+            throw new IllegalArgumentException("Page options must be positive");
+        }
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.maxItems = maxItems;
+    }
+
+    public static PageOptions unbounded() {
+        return new PageOptions(null, UNBOUNDED, UNBOUNDED);
+    }
+
+    /**
+     * The same page size without the guards, for operations (like deletes) which must see the
+     * whole partition however large it is.
+     */
+    public PageOptions unguarded() {
+        return new PageOptions(pageSize, UNBOUNDED, UNBOUNDED);
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * Applies the page size to the request. A limit the caller already set caps the whole query
+     * rather than each page, so the first page asks for no more than it.
+     */
+    public QueryRequest apply(QueryRequest request) {
+        if (Objects.isNull(pageSize)) {
+            return request;
+        }
+        Integer limit = request.limit();
+        return request.toBuilder()
+                .limit(Objects.isNull(limit) ? pageSize : Math.min(pageSize, limit))
+                .build();
+    }
+
+    /**
+     * Applies the page size to a scan, unless the caller already set a limit. Scans are paged
+     * per segment until the table is exhausted, so for them a caller's Limit is the page size of
+     * each segment, not a cap on the items scanned.
+     */
+    public ScanRequest apply(ScanRequest request) {
+        if (Objects.isNull(pageSize) || Objects.nonNull(request.limit())) {
+            return request;
+        }
+        return request.toBuilder().limit(pageSize).build();
+    }
+}
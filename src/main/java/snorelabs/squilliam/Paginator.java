@@ -0,0 +1,60 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.Objects;
+
+/**
+ * Tracks a paged query. The paginator doesn't call Dynamo itself, it hands out the request for
+ * each page and checks the guards as responses come back, so the same logic drives both the
+ * blocking and the async clients. A Limit set by the caller is the most items of the whole query
+ * (as it was when a load was a single query), each page only asks for what is left of it.
+ */
+class Paginator {
+    private final QueryRequest request;
+    private final PageOptions options;
+    private final Integer limit;
+    private int pages;
+    private long items;
+
+    Paginator(QueryRequest request, PageOptions options) {
+        this.request = options.apply(request);
+        this.options = options;
+        this.limit = request.limit();
+    }
+
+    QueryRequest first() {
+        return request;
+    }
+
+    /**
+     * Records the response and gets the request for the following page, or null when the query
+     * is exhausted.
+     */
+    QueryRequest next(QueryResponse response) {
+        pages++;
+        items += response.items().size();
+        if (items > options.getMaxItems()) {
+            throw new PageLimitException("Query exceeded max items", request, pages, items);
+        }
+        if (!hasMore(response) || (Objects.nonNull(limit) && items >= limit)) {
+            return null;
+        }
+        if (pages >= options.getMaxPages()) {
+            throw new PageLimitException("Query exceeded max pages", request, pages, items);
+        }
+        QueryRequest.Builder next = request.toBuilder()
+                .exclusiveStartKey(response.lastEvaluatedKey());
+        if (Objects.nonNull(limit)) {
+            next.limit((int) Math.min(request.limit(), limit - items));
+        }
+        return next.build();
+    }
+
+    static boolean hasMore(QueryResponse response) {
+        return response.hasLastEvaluatedKey()
+                && Objects.nonNull(response.lastEvaluatedKey())
+                && !response.lastEvaluatedKey().isEmpty();
+    }
+}
@@ -0,0 +1,22 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.Map;
+
+/**
+ * Thrown when referenced items couldn't be read because Dynamo kept handing their keys back as
+ * unprocessed after the retry policy gave up.
+ */
+public class ReferenceException extends RuntimeException {
+    private Map<String, KeysAndAttributes> unprocessedKeys;
+
+    public ReferenceException(String msg, Map<String, KeysAndAttributes> unprocessedKeys) {
+        super(msg);
+        this.unprocessedKeys = unprocessedKeys;
+    }
+
+    public Map<String, KeysAndAttributes> getUnprocessedKeys() {
+        return unprocessedKeys;
+    }
+}
@@ -0,0 +1,53 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+
+import java.time.Duration;
+
+/**
+ * Reads the keys collected in References one BatchGetItem at a time, resending unprocessed keys
+ * according to the retry policy, then sets the items on their roots.
+ */
+class ReferenceResolver {
+    private final DynamoDbClient dynamoDbClient;
+    private final RetryPolicy retryPolicy;
+
+    ReferenceResolver(DynamoDbClient dynamoDbClient, RetryPolicy retryPolicy) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.retryPolicy = retryPolicy;
+    }
+
+    void resolve(References references) {
+        if (references.isEmpty()) {
+            return;
+        }
+        for (BatchGetItemRequest request : references.requests()) {
+            BatchGetItemRequest pending = request;
+            int attempt = 1;
+            while (true) {
+                BatchGetItemRequest unprocessed =
+                        references.accept(dynamoDbClient.batchGetItem(pending));
+                if (unprocessed == null) {
+                    break;
+                }
+                if (!retryPolicy.canRetry(attempt)) {
+                    throw new ReferenceException("Referenced items left unprocessed",
+                            unprocessed.requestItems());
+                }
+                attempt++;
+                sleep(retryPolicy.delay(attempt));
+                pending = unprocessed;
+            }
+        }
+        references.resolve();
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            throw Concurrency.interrupted(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.Reference;
+import snorelabs.squilliam.core.TargetDescriber;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resolves the references of loaded roots, shared by the blocking and async clients. Keys are
+ * collected from every root added and deduplicated, so an item shared by many aggregates is read
+ * once, and they are read in BatchGetItem requests of up to 100 keys rather than one GetItem
+ * each.
+ * ============================================================================================
+ * for root in roots:
+ *     for reference in references(root):
+ *         keys[table(reference)] += reference.key(root)
+ * for request in partition(keys, 100):
+ *     items += batch_get(request)                      # retrying unprocessed keys
+ * for root, reference:
+ *     reference.set(root, items[table(reference)][reference.key(root)])
+ * ============================================================================================
+ * Referenced items which don't exist leave their field unset. Not thread safe, responses are
+ * expected one at a time.
+ */
+class References {
+    static final int DYNAMO_BATCH_GET_SIZE = 100;
+
+    private final List<Owner> owners = new ArrayList<>();
+    private final Map<String, Set<Map<String, AttributeValue>>> keys = new LinkedHashMap<>();
+    private final Map<String, Map<Map<String, AttributeValue>, Map<String, AttributeValue>>> items =
+            new HashMap<>();
+
+    /**
+     * Collects the keys the root refers to, tableName being the table it was loaded from.
+     */
+    void add(Object root, String tableName) {
+        if (Objects.isNull(root)) {
+            return;
+        }
+        for (Reference reference : TargetDescriber.describe(root.getClass()).getReferences()) {
+            Map<String, AttributeValue> key = reference.key(root);
+            if (key.isEmpty()) {
+                continue;
+            }
+            String table = Objects.requireNonNullElse(reference.getTable(), tableName);
+            if (Objects.isNull(table)) {
+                throw new IllegalArgumentException("No table to resolve " + reference.getField());
+            }
+            keys.computeIfAbsent(table, name -> new LinkedHashSet<>()).add(key);
+            owners.add(new Owner(root, reference, table, key));
+        }
+    }
+
+    boolean isEmpty() {
+        return owners.isEmpty();
+    }
+
+    /**
+     * Splits the distinct keys into requests of at most 100 keys across all tables.
+     */
+    List<BatchGetItemRequest> requests() {
+        List<BatchGetItemRequest> requests = new ArrayList<>();
+        Map<String, List<Map<String, AttributeValue>>> batch = new LinkedHashMap<>();
+        int size = 0;
+        for (Map.Entry<String, Set<Map<String, AttributeValue>>> table : keys.entrySet()) {
+            for (Map<String, AttributeValue> key : table.getValue()) {
+                batch.computeIfAbsent(table.getKey(), name -> new ArrayList<>()).add(key);
+                if (++size == DYNAMO_BATCH_GET_SIZE) {
+                    requests.add(request(batch));
+                    batch = new LinkedHashMap<>();
+                    size = 0;
+                }
+            }
+        }
+        if (size > 0) {
+            requests.add(request(batch));
+        }
+        return requests;
+    }
+
+    private static BatchGetItemRequest request(
+            Map<String, List<Map<String, AttributeValue>>> keys) {
+        Map<String, KeysAndAttributes> requestItems = new LinkedHashMap<>();
+        keys.forEach((table, tableKeys) ->
+                requestItems.put(table, KeysAndAttributes.builder().keys(tableKeys).build()));
+        return BatchGetItemRequest.builder().requestItems(requestItems).build();
+    }
+
+    /**
+     * Keeps the items of the response, and gets the request for the keys Dynamo left
+     * unprocessed, or null when there are none.
+     */
+    BatchGetItemRequest accept(BatchGetItemResponse response) {
+        if (response.hasResponses()) {
+            response.responses().forEach((table, tableItems) -> {
+                Map<Map<String, AttributeValue>, Map<String, AttributeValue>> byKey =
+                        items.computeIfAbsent(table, name -> new HashMap<>());
+                for (Map<String, AttributeValue> item : tableItems) {
+                    for (Set<String> names : keyNames(table)) {
+                        byKey.put(key(item, names), item);
+                    }
+                }
+            });
+        }
+        if (!response.hasUnprocessedKeys() || response.unprocessedKeys().isEmpty()) {
+            return null;
+        }
+        return BatchGetItemRequest.builder().requestItems(response.unprocessedKeys()).build();
+    }
+
+    /**
+     * Sets every resolved item on the roots which refer to it.
+     */
+    void resolve() {
+        for (Owner owner : owners) {
+            Map<String, AttributeValue> item =
+                    items.getOrDefault(owner.table, Map.of()).get(owner.key);
+            if (Objects.nonNull(item)) {
+                owner.reference.set(owner.root, item);
+            }
+        }
+    }
+
+    /**
+     * The distinct sets of key attribute names referenced in the table, usually just one.
+     */
+    private Set<Set<String>> keyNames(String table) {
+        Set<Set<String>> names = new LinkedHashSet<>();
+        for (Map<String, AttributeValue> key : keys.getOrDefault(table, Set.of())) {
+            names.add(key.keySet());
+        }
+        return names;
+    }
+
+    private static Map<String, AttributeValue> key(Map<String, AttributeValue> item,
+                                                   Set<String> names) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        for (String name : names) {
+            key.put(name, item.get(name));
+        }
+        return key;
+    }
+
+    private static class Owner {
+        private final Object root;
+        private final Reference reference;
+        private final String table;
+        private final Map<String, AttributeValue> key;
+
+        private Owner(Object root, Reference reference, String table,
+                      Map<String, AttributeValue> key) {
+            this.root = root;
+            this.reference = reference;
+            this.table = table;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.Relation;
+import snorelabs.squilliam.core.TransformTarget;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds the sub-queries of a selective load, shared by the blocking and async clients: one
+ * begins_with query on the sort key for the root item and one for each distinct sort key prefix
+ * of a requested relation and the relations nested under it. Nested items linked by sort key
+ * share the prefix of their parent, those linked by a parent key attribute may sit under their
+ * own.
+ * Prefixes default to the item type itself, which begins_with also matches on types named after
+ * it ("Team" matches "TeamSettings"), so each sub-query is filtered down to the item types it is
+ * for. The filter only drops the extra items after they are read, types sharing a prefix like
+ * that should declare sort key prefixes ending in a delimiter (see ItemType).
+ */
+class RelationQueries {
+    static List<QueryRequest> requests(KeyQueries keyQueries, TransformTarget<?> target,
+                                       String tableName, String itemAttrName,
+                                       Object partitionValue, String... relations) {
+        Class<?> model = target.getModel();
+        List<QueryRequest> requests = new ArrayList<>();
+        if (target.isInDynamo()) {
+            if (Objects.isNull(target.getSortKeyPrefix())) {
+                throw new IllegalArgumentException("No item type identifier on " + model);
+            }
+            requests.add(ofTypes(keyQueries.request(model, tableName, partitionValue,
+                    target.getSortKeyPrefix()), itemAttrName, List.of(target.getItemType())));
+        }
+        for (String name : relations) {
+            Map<String, List<String>> itemTypes = new LinkedHashMap<>();
+            addItemTypes(relation(target, name), itemTypes);
+            itemTypes.forEach((prefix, types) -> requests.add(ofTypes(
+                    keyQueries.request(model, tableName, partitionValue, prefix),
+                    itemAttrName, types)));
+        }
+        return requests;
+    }
+
+    /**
+     * Collects the item types of the relation and of the relations nested under it by the sort
+     * key prefix their items sit under.
+     */
+    private static void addItemTypes(Relation relation, Map<String, List<String>> itemTypes) {
+        itemTypes.computeIfAbsent(relation.getSortKeyPrefix(), prefix -> new ArrayList<>())
+                .add(relation.getItemType());
+        for (Relation nested : relation.getRelations().values()) {
+            addItemTypes(nested, itemTypes);
+        }
+    }
+
+    /**
+     * Filters the query down to items of the given types.
+     */
+    private static QueryRequest ofTypes(QueryRequest request, String itemAttrName,
+                                        List<String> itemTypes) {
+        Map<String, String> names = new HashMap<>(request.expressionAttributeNames());
+        names.put("#squilliamType", itemAttrName);
+        Map<String, AttributeValue> values = new HashMap<>(request.expressionAttributeValues());
+        List<String> placeholders = new ArrayList<>();
+        for (int i = 0; i < itemTypes.size(); i++) {
+            String placeholder = ":squilliamType" + i;
+            placeholders.add(placeholder);
+            values.put(placeholder, AttributeValue.builder().s(itemTypes.get(i)).build());
+        }
+        String filter = "#squilliamType IN (" + String.join(", ", placeholders) + ")";
+        if (Objects.nonNull(request.filterExpression())) {
+            filter = "(" + request.filterExpression() + ") AND " + filter;
+        }
+        return request.toBuilder()
+                .filterExpression(filter)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    /**
+     * Finds a relation by the name of its field.
+     */
+    private static Relation relation(TransformTarget<?> target, String name) {
+        return target.getRelations().values().stream()
+                .filter(relation -> relation.getField().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No relation " + name + " on " + target.getModel()));
+    }
+}
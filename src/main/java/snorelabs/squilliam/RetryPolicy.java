@@ -0,0 +1,66 @@
+package snorelabs.squilliam;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How hard to try writing items Dynamo hands back as unprocessed. Delays grow exponentially with
+ * the attempt and use full jitter (a random delay between zero and the exponential cap), which
+ * keeps a fleet of throttled writers from retrying in lockstep.
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    /**
+     * @param maxAttempts - Total attempts per item, including the first.
+     * @param baseDelay - Cap on the delay before the first retry, doubled for every retry after.
+     * @param maxDelay - Cap on any single delay.
+     */
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(8, Duration.ofMillis(50), Duration.ofSeconds(5));
+    }
+
+    /**
+     * Never retries, unprocessed items are reported straight away.
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Whether an item which has been attempted the given number of times may be tried again.
+     */
+    public boolean canRetry(int attempts) {
+        return attempts < maxAttempts;
+    }
+
+    /**
+     * Gets the delay before the given attempt, attempts being counted from 1. The first attempt
+     * is never delayed.
+     */
+    public Duration delay(int attempt) {
+        if (attempt <= 1) {
+            return Duration.ZERO;
+        }
+        long cap = Math.min(maxDelay.toMillis(),
+                baseDelay.toMillis() << Math.min(attempt - 2, 30));
+        return cap <= 0
+                ? Duration.ZERO
+                : Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+}
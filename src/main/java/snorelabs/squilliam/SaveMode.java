@@ -0,0 +1,16 @@
+package snorelabs.squilliam;
+
+/**
+ * How save writes the members of a tracked aggregate which were modified since it was loaded.
+ */
+public enum SaveMode {
+    /**
+     * Puts the whole item in a batch write, with the fewest requests.
+     */
+    PUT,
+    /**
+     * Sends an UpdateItem with only the attributes which changed, with the fewest bytes. Best
+     * for large items where a counter or a status changes constantly.
+     */
+    UPDATE
+}
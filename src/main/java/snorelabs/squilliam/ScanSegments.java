@@ -0,0 +1,102 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.PartitionAccumulator;
+import snorelabs.squilliam.core.TransformTarget;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Turns the pages of one scan segment into aggregates, shared by the blocking and async clients.
+ * A segment returns all the items of a partition one after another (in sort key order), so an
+ * aggregate is complete as soon as an item of the next partition shows up, and only one
+ * aggregate per segment is ever being accumulated.
+ * ============================================================================================
+ * for item in pages(segment):
+ *     if partition_key(item) != current:
+ *         emit_if_of_target(accumulator)
+ *         accumulator = new(), current = partition_key(item)
+ *     accumulator.accept(item)
+ * emit_if_of_target(accumulator)
+ * ============================================================================================
+ * Grouping relies on Dynamo returning the items of a partition contiguously within a segment,
+ * a partition whose items were interleaved with another's would be split into broken aggregates.
+ * Tables holding several kinds of aggregate are fine: partitions without a root item of the
+ * target are skipped rather than failing the scan.
+ */
+class ScanSegments<T> {
+    private final String itemAttrName;
+    private final TransformTarget<T> target;
+    private final String partitionKey;
+    private PartitionAccumulator<T> accumulator;
+    private AttributeValue current;
+
+    ScanSegments(String itemAttrName, TransformTarget<T> target, String partitionKey) {
+        this.itemAttrName = itemAttrName;
+        this.target = target;
+        this.partitionKey = partitionKey;
+    }
+
+    /**
+     * Splits the scan into the requests of its segments.
+     */
+    static List<ScanRequest> segments(ScanRequest request, int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("Segments must be positive");
+        }
+        List<ScanRequest> segments = new ArrayList<>(totalSegments);
+        for (int i = 0; i < totalSegments; i++) {
+            segments.add(request.toBuilder().segment(i).totalSegments(totalSegments).build());
+        }
+        return segments;
+    }
+
+    /**
+     * Gets the request for the page after the response, or null when the segment is done.
+     */
+    static ScanRequest next(ScanRequest request, ScanResponse response) {
+        if (!response.hasLastEvaluatedKey() || response.lastEvaluatedKey().isEmpty()) {
+            return null;
+        }
+        return request.toBuilder().exclusiveStartKey(response.lastEvaluatedKey()).build();
+    }
+
+    /**
+     * Accepts a page of the segment, emitting every aggregate it completes.
+     */
+    void accept(List<Map<String, AttributeValue>> items, Consumer<? super T> emit) {
+        for (Map<String, AttributeValue> item : items) {
+            AttributeValue value = item.get(partitionKey);
+            if (Objects.nonNull(accumulator) && !Objects.equals(value, current)) {
+                emitIfOfTarget(emit);
+            }
+            if (Objects.isNull(accumulator)) {
+                accumulator = new PartitionAccumulator<>(itemAttrName, target);
+                current = value;
+            }
+            accumulator.accept(item);
+        }
+    }
+
+    /**
+     * Emits the aggregate of the last partition of the segment.
+     */
+    void finish(Consumer<? super T> emit) {
+        if (Objects.nonNull(accumulator)) {
+            emitIfOfTarget(emit);
+        }
+    }
+
+    private void emitIfOfTarget(Consumer<? super T> emit) {
+        if (accumulator.isOfTarget()) {
+            emit.accept(accumulator.build());
+        }
+        accumulator = null;
+    }
+}
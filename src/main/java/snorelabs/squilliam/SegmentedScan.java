@@ -0,0 +1,127 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.TransformTarget;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs every segment of a parallel scan on the executor and hands the aggregates they build to
+ * the consuming thread through a bounded queue. Segments block once the queue is full, so a slow
+ * consumer holds back the scan rather than the aggregates piling up in memory. Closing the scan
+ * stops the segments after their current page.
+ */
+class SegmentedScan<T> implements Iterator<T>, AutoCloseable {
+    static final int BUFFERED_AGGREGATES = 64;
+
+    private static final Object SEGMENT_DONE = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(BUFFERED_AGGREGATES);
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private int running;
+    private T next;
+
+    SegmentedScan(DynamoDbClient dynamoDbClient, Executor executor, ScanRequest request,
+                  int segments, String itemAttrName, TransformTarget<T> target,
+                  String partitionKey) {
+        List<ScanRequest> requests = ScanSegments.segments(request, segments);
+        this.running = requests.size();
+        for (ScanRequest segment : requests) {
+            ScanSegments<T> grouper = new ScanSegments<>(itemAttrName, target, partitionKey);
+            executor.execute(() -> scan(dynamoDbClient, segment, grouper));
+        }
+    }
+
+    private void scan(DynamoDbClient dynamoDbClient, ScanRequest request,
+                      ScanSegments<T> grouper) {
+        try {
+            ScanRequest page = request;
+            while (Objects.nonNull(page) && !closed.get()) {
+                ScanResponse response = dynamoDbClient.scan(page);
+                grouper.accept(response.items(), this::put);
+                page = ScanSegments.next(page, response);
+            }
+            grouper.finish(this::put);
+        } catch (RuntimeException e) {
+            put(new Failure(e));
+        } finally {
+            put(SEGMENT_DONE);
+        }
+    }
+
+    /**
+     * Waits for room in the queue, giving up once the scan is closed.
+     */
+    private void put(Object value) {
+        try {
+            while (!closed.get()) {
+                if (queue.offer(value, 50, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            throw Concurrency.interrupted(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        while (Objects.isNull(next) && running > 0) {
+            Object value = take();
+            if (value == SEGMENT_DONE) {
+                running--;
+            } else if (value instanceof Failure failure) {
+                close();
+                throw failure.error;
+            } else {
+                next = (T) value;
+            }
+        }
+        return Objects.nonNull(next);
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = next;
+        next = null;
+        return value;
+    }
+
+    private Object take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            close();
+            throw Concurrency.interrupted(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+        running = 0;
+        queue.clear();
+    }
+
+    private static class Failure {
+        private final RuntimeException error;
+
+        private Failure(RuntimeException error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same QueryRequest and target class, shared by the blocking
+ * and async clients. The first load goes to Dynamo, loads arriving while it is in flight wait for
+ * its result (or failure) instead of issuing their own. Once it completes the next load starts
+ * afresh, so nothing is cached beyond the flight itself.
+ * ============================================================================================
+ * load(key):
+ *     flight = in_flight.put_if_absent(key, new_flight)
+ *     if flight is not new_flight:
+ *         return share(flight.join())              # the same instance or a copy
+ *     try:
+ *         root = do_load()
+ *         new_flight.complete(sharing == COPIED ? snapshot(root) : root)
+ *         return root
+ *     finally: in_flight.remove(key)
+ * ============================================================================================
+ * Copies are built from a snapshot of the root's items taken before the root is handed to the
+ * leader, never from the leader's instance, which the leader may already be changing.
+ */
+class SingleFlight {
+    private final LoadSharing sharing;
+    private final String itemAttrName;
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight =
+            new ConcurrentHashMap<>();
+
+    SingleFlight(LoadSharing sharing, String itemAttrName) {
+        this.sharing = Objects.requireNonNull(sharing);
+        this.itemAttrName = itemAttrName;
+    }
+
+    <T> T load(Class<T> classTarget, QueryRequest request, Supplier<T> load) {
+        if (sharing == LoadSharing.NONE) {
+            return load.get();
+        }
+        List<Object> key = List.of(classTarget, request);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (Objects.nonNull(leader)) {
+            try {
+                return share(classTarget, leader.join());
+            } catch (CompletionException e) {
+                throw Concurrency.unwrap(e);
+            }
+        }
+        try {
+            T root = load.get();
+            flight.complete(shared(root));
+            return root;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    <T> CompletableFuture<T> loadAsync(Class<T> classTarget, QueryRequest request,
+                                       Supplier<CompletableFuture<T>> load) {
+        if (sharing == LoadSharing.NONE) {
+            return load.get();
+        }
+        List<Object> key = List.of(classTarget, request);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (Objects.nonNull(leader)) {
+            return leader.thenApply(shared -> share(classTarget, shared));
+        }
+        CompletableFuture<T> loaded;
+        try {
+            loaded = load.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        return loaded.whenComplete((root, e) -> {
+            inFlight.remove(key, flight);
+            if (Objects.isNull(e)) {
+                flight.complete(shared(root));
+            } else {
+                flight.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * What the followers of the flight are given the root from.
+     */
+    private Object shared(Object root) {
+        return sharing == LoadSharing.COPIED ? AggregateSnapshot.of(root) : root;
+    }
+
+    private <T> T share(Class<T> classTarget, Object shared) {
+        return shared instanceof AggregateSnapshot snapshot
+                ? snapshot.copy(classTarget, itemAttrName)
+                : classTarget.cast(shared);
+    }
+}
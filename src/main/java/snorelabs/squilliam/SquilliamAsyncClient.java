@@ -0,0 +1,725 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.AggregateMapper;
+import snorelabs.squilliam.core.AggregateMappers;
+import snorelabs.squilliam.core.ChangeSet;
+import snorelabs.squilliam.core.ItemUpdate;
+import snorelabs.squilliam.core.KeyCondition;
+import snorelabs.squilliam.core.PartitionAccumulator;
+import snorelabs.squilliam.core.PartitionTransformer;
+import snorelabs.squilliam.core.Projection;
+import snorelabs.squilliam.core.SchemaRegistry;
+import snorelabs.squilliam.core.Snapshot;
+import snorelabs.squilliam.core.TargetDescriber;
+import snorelabs.squilliam.core.TransformTarget;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionInProgressException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The non-blocking counterpart of the SquilliamClient, built on the DynamoDbAsyncClient. Nothing
+ * here waits on Dynamo (backoffs included): the next page of a query is requested as soon as the
+ * previous page arrives, while that page is still being transformed. Writes, updates and deletes
+ * go through an AsyncDispatch, which keeps at most maxInFlightBatches of them in flight, and
+ * loadAll likewise keeps at most maxConcurrentLoads loads in flight.
+ */
+public class SquilliamAsyncClient {
+    private DynamoDbAsyncClient dynamoDbClient;
+    private String itemAttrName;
+    private PageOptions pageOptions;
+    private boolean autoProjection;
+    private final KeyQueries keyQueries = new KeyQueries(this::project);
+    private RetryPolicy retryPolicy;
+    private int maxConcurrentLoads;
+    private int maxInFlightBatches;
+    private AggregateCache cache;
+    private SingleFlight singleFlight;
+    private final ConcurrentMap<String, List<String>> tableKeys = new ConcurrentHashMap<>();
+
+    public SquilliamAsyncClient(DynamoDbAsyncClient client, String itemAttrName) {
+        this(builder().dynamoDbClient(client).itemAttrName(itemAttrName));
+    }
+
+    private SquilliamAsyncClient(Builder builder) {
+        this.dynamoDbClient = builder.dynamoDbClient;
+        this.itemAttrName = builder.itemAttrName;
+        this.pageOptions = new PageOptions(builder.pageSize, builder.maxPages, builder.maxItems);
+        this.autoProjection = builder.autoProjection;
+        this.retryPolicy = builder.retryPolicy;
+        this.maxConcurrentLoads = builder.maxConcurrentLoads;
+        this.maxInFlightBatches = builder.maxInFlightBatches;
+        this.cache = builder.cache;
+        this.singleFlight = new SingleFlight(builder.loadSharing, builder.itemAttrName);
+    }
+
+    /**
+     * Queries every page of the request and builds an instance of the target class from the
+     * retrieved records, as SquilliamClient.load does.
+     */
+    public <T> CompletableFuture<T> load(QueryRequest request, Class<T> classTarget) {
+        if (Objects.isNull(cache)) {
+            return singleFlight.loadAsync(classTarget, request,
+                    () -> loadUncached(request, classTarget));
+        }
+        Optional<T> cached = cache.get(classTarget, request);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return singleFlight.loadAsync(classTarget, request, () -> {
+            long generation = cache.getGeneration();
+            return loadUncached(request, classTarget).thenApply(root -> {
+                cache.put(classTarget, request, root, generation);
+                return root;
+            });
+        });
+    }
+
+    private <T> CompletableFuture<T> loadUncached(QueryRequest request, Class<T> classTarget) {
+        return build(request, TargetDescriber.describe(classTarget),
+                AggregateMappers.find(classTarget))
+                .thenCompose(root -> {
+                    References references = new References();
+                    references.add(root, request.tableName());
+                    return resolve(references).thenApply(done -> root);
+                });
+    }
+
+    private <T> CompletableFuture<T> build(QueryRequest request, TransformTarget<T> target,
+                                          Optional<AggregateMapper<T>> mapper) {
+        QueryRequest projected = project(request, target.getModel());
+        if (mapper.isPresent()) {
+            AggregateMapper.Accumulator<T> accumulator = mapper.get().accumulator();
+            return queryDynamo(projected, items -> accumulator.acceptAll(itemAttrName, items))
+                    .thenApply(done -> accumulator.build());
+        }
+        PartitionAccumulator<T> accumulator = new PartitionAccumulator<>(itemAttrName, target);
+        return queryDynamo(projected, accumulator::acceptAll)
+                .thenApply(done -> accumulator.build());
+    }
+
+    /**
+     * Loads many aggregates of the target class at once, as SquilliamClient does.
+     */
+    public <T> CompletableFuture<List<LoadResult<T>>> loadAll(Collection<QueryRequest> requests,
+                                                             Class<T> classTarget) {
+        return loadAll(requests, classTarget, null);
+    }
+
+    /**
+     * Loads many aggregates of the target class at once, as SquilliamClient does. At most as
+     * many loads as the client allows concurrent loads are in flight, the next pending key
+     * starting once a load completes.
+     */
+    public <T> CompletableFuture<List<LoadResult<T>>> loadAll(Collection<?> keys,
+                                                             Class<T> classTarget,
+                                                             String tableName) {
+        TransformTarget<T> target = TargetDescriber.describe(classTarget);
+        Optional<AggregateMapper<T>> mapper = AggregateMappers.find(classTarget);
+        Function<Object, CompletableFuture<LoadResult<T>>> loader = key -> {
+            CompletableFuture<T> load;
+            try {
+                QueryRequest request = key instanceof QueryRequest query
+                        ? query
+                        : keyQueries.request(classTarget, tableName, key, null);
+                load = build(request, target, mapper);
+            } catch (RuntimeException e) {
+                load = CompletableFuture.failedFuture(e);
+            }
+            return load.handle((value, e) -> Objects.isNull(e)
+                    ? LoadResult.loaded(key, value)
+                    : LoadResult.failed(key, Concurrency.unwrap(e)));
+        };
+        // A failed load completes as a failed LoadResult, so the dispatch itself never fails.
+        // The keys are copied as the dispatch pulls them from whichever thread completes a load.
+        Iterator<?> pending = new ArrayList<>(keys).iterator();
+        return AsyncDispatch.all(pending, loader, maxConcurrentLoads).thenCompose(loaded -> {
+            References references = new References();
+            for (LoadResult<T> result : loaded) {
+                if (result.isLoaded()) {
+                    references.add(result.getValue(), result.getKey() instanceof QueryRequest query
+                            ? query.tableName()
+                            : tableName);
+                }
+            }
+            return resolve(references).thenApply(resolved -> loaded);
+        });
+    }
+
+    /**
+     * Loads the partition with the given partition key, as SquilliamClient does.
+     */
+    public <T> CompletableFuture<T> load(Class<T> classTarget, String tableName,
+                                         Object partitionValue) {
+        return load(classTarget, tableName, partitionValue, null);
+    }
+
+    /**
+     * Loads the items of the partition whose sort key begins with the prefix, as
+     * SquilliamClient does.
+     */
+    public <T> CompletableFuture<T> load(Class<T> classTarget, String tableName,
+                                         Object partitionValue, String sortKeyPrefix) {
+        return load(keyQueries.request(classTarget, tableName, partitionValue, sortKeyPrefix),
+                classTarget);
+    }
+
+    /**
+     * Loads the root of the target along with only the named relations, as
+     * SquilliamClient.loadOnly does, with all of the sub-queries in flight at once.
+     * References are resolved as in load.
+     */
+    public <T> CompletableFuture<T> loadOnly(Class<T> classTarget, String tableName,
+                                             Object partitionValue, String... relations) {
+        TransformTarget<T> target = TargetDescriber.describe(classTarget);
+        PartitionAccumulator<T> accumulator = new PartitionAccumulator<>(itemAttrName, target);
+        // Each sub-query's pages arrive in order, but the sub-queries race each other
+        Consumer<List<Map<String, AttributeValue>>> sink = items -> {
+            synchronized (accumulator) {
+                accumulator.acceptAll(items);
+            }
+        };
+        List<CompletableFuture<Void>> queries = RelationQueries
+                .requests(keyQueries, target, tableName, itemAttrName, partitionValue, relations)
+                .stream()
+                .map(request -> queryDynamo(request, sink))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(queries.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(done -> {
+                    T root;
+                    synchronized (accumulator) {
+                        root = accumulator.build();
+                    }
+                    References references = new References();
+                    references.add(root, tableName);
+                    return resolve(references).thenApply(resolved -> root);
+                });
+    }
+
+    /**
+     * Writes a root item to Dynamo atomically, see the overload with options.
+     */
+    public <T> CompletableFuture<TransactionResult> writeAtomically(T root, String tableName) {
+        return writeAtomically(root, tableName, TransactionOptions.none());
+    }
+
+    /**
+     * Writes a root item to Dynamo with TransactWriteItems, as SquilliamClient.writeAtomically
+     * does. Chunks still go one after another, each chained on the previous one committing.
+     */
+    public <T> CompletableFuture<TransactionResult> writeAtomically(T root, String tableName,
+                                                                    TransactionOptions options) {
+        List<Transactions.Chunk> chunks = Transactions.chunks(root, tableName, options);
+        return invalidating(transactChunk(chunks, 0, 1, new ArrayList<>()), root, tableName);
+    }
+
+    /**
+     * Sends the chunk at the index, then the ones after it once it commits. Chunks cancelled only
+     * because of contention are resent with the same token after backing off.
+     */
+    private CompletableFuture<TransactionResult> transactChunk(
+            List<Transactions.Chunk> chunks, int index, int attempt,
+            List<TransactWriteItemsResponse> responses) {
+        if (index == chunks.size()) {
+            return CompletableFuture.completedFuture(
+                    new TransactionResult(responses, chunks.size(), chunks.size(), List.of()));
+        }
+        Transactions.Chunk chunk = chunks.get(index);
+        return after(retryPolicy.delay(attempt))
+                .thenCompose(ready -> dynamoDbClient.transactWriteItems(chunk.request()))
+                .handle((response, error) -> {
+                    if (Objects.isNull(error)) {
+                        responses.add(response);
+                        return transactChunk(chunks, index + 1, 1, responses);
+                    }
+                    Throwable cause = error instanceof CompletionException
+                            ? error.getCause()
+                            : error;
+                    boolean canRetry = retryPolicy.canRetry(attempt);
+                    if (cause instanceof TransactionCanceledException cancelled) {
+                        if (Transactions.isTransient(cancelled) && canRetry) {
+                            return transactChunk(chunks, index, attempt + 1, responses);
+                        }
+                        return CompletableFuture.completedFuture(new TransactionResult(
+                                responses, index, chunks.size(),
+                                Transactions.failures(chunk, cancelled)));
+                    }
+                    if (cause instanceof TransactionInProgressException && canRetry) {
+                        return transactChunk(chunks, index, attempt + 1, responses);
+                    }
+                    return CompletableFuture.<TransactionResult>failedFuture(cause);
+                })
+                .thenCompose(next -> next);
+    }
+
+    /**
+     * Loads the aggregate as load does, along with a snapshot of its items so that save only
+     * writes what has changed since.
+     */
+    public <T> CompletableFuture<Tracked<T>> loadTracked(QueryRequest request,
+                                                         Class<T> classTarget) {
+        return loadUncached(request, classTarget).thenApply(root ->
+                new Tracked<>(root, Snapshot.take(root, WriteBatches.items(root))));
+    }
+
+    /**
+     * Queries every page of the request and builds a List of the target class from the retrieved
+     * records, resolving their references.
+     */
+    public <T> CompletableFuture<List<T>> query(QueryRequest request, Class<T> targetClass) {
+        List<T> instances = new ArrayList<>();
+        return queryDynamo(project(request, targetClass),
+                items -> instances.addAll(PartitionTransformer.instances(items, targetClass)))
+                .thenCompose(done -> {
+                    References references = new References();
+                    instances.forEach(instance -> references.add(instance, request.tableName()));
+                    return resolve(references);
+                })
+                .thenApply(done -> instances);
+    }
+
+    /**
+     * Reads the collected references one BatchGetItem after another, as SquilliamClient does.
+     */
+    private CompletableFuture<Void> resolve(References references) {
+        if (references.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> reads = CompletableFuture.completedFuture(null);
+        for (BatchGetItemRequest request : references.requests()) {
+            reads = reads.thenCompose(done -> batchGet(references, request, 1));
+        }
+        return reads.thenRun(references::resolve);
+    }
+
+    private CompletableFuture<Void> batchGet(References references, BatchGetItemRequest request,
+                                             int attempt) {
+        return after(retryPolicy.delay(attempt))
+                .thenCompose(ready -> dynamoDbClient.batchGetItem(request))
+                .thenCompose(response -> {
+                    BatchGetItemRequest unprocessed = references.accept(response);
+                    if (unprocessed == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (!retryPolicy.canRetry(attempt)) {
+                        throw new ReferenceException("Referenced items left unprocessed",
+                                unprocessed.requestItems());
+                    }
+                    return batchGet(references, unprocessed, attempt + 1);
+                });
+    }
+
+    /**
+     * Scans the whole table in parallel segments, as SquilliamClient does. Each segment only asks
+     * for its next page once the consumer has taken the aggregates of the current one, which is
+     * what holds the scan back for a slow consumer. The consumer is never called concurrently.
+     */
+    public <T> CompletableFuture<Void> scan(ScanRequest request, Class<T> classTarget,
+                                            int segments, Consumer<? super T> consumer) {
+        TransformTarget<T> target = TargetDescriber.describe(classTarget);
+        String partitionKey = KeyCondition.of(classTarget).getPartitionKey();
+        ScanRequest projected = pageOptions.apply(project(request, classTarget));
+        Consumer<T> serialized = aggregate -> {
+            synchronized (consumer) {
+                consumer.accept(aggregate);
+            }
+        };
+        return CompletableFuture.allOf(ScanSegments.segments(projected, segments).stream()
+                .map(segment -> scanPage(segment,
+                        new ScanSegments<>(itemAttrName, target, partitionKey), serialized))
+                .toArray(CompletableFuture<?>[]::new));
+    }
+
+    private <T> CompletableFuture<Void> scanPage(ScanRequest request, ScanSegments<T> grouper,
+                                                 Consumer<T> consumer) {
+        return dynamoDbClient.scan(request).thenCompose(response -> {
+            grouper.accept(response.items(), consumer);
+            ScanRequest next = ScanSegments.next(request, response);
+            if (Objects.isNull(next)) {
+                grouper.finish(consumer);
+                return CompletableFuture.completedFuture(null);
+            }
+            return scanPage(next, grouper, consumer);
+        });
+    }
+
+    /**
+     * Writes a root item to Dynamo in batches of 25, keeping at most the client's max in flight
+     * batches in flight and only filling a batch once a slot frees up. Each batch resends the
+     * items Dynamo didn't process after backing off according to the retry policy, and any still
+     * unprocessed when it gives up are reported in the result.
+     */
+    public <T> CompletableFuture<WriteResult> writeAll(T root, String tableName) {
+        return invalidating(write(tableName, WriteBatches.writes(root)), root, tableName);
+    }
+
+    /**
+     * Writes only the items of a tracked aggregate which changed since it was loaded or last
+     * saved, as SquilliamClient.save does.
+     */
+    public <T> CompletableFuture<WriteResult> save(Tracked<T> tracked, String tableName) {
+        return save(tracked, tableName, SaveMode.PUT);
+    }
+
+    /**
+     * Saves a tracked aggregate, writing modified items as the mode says. In UPDATE mode the
+     * UpdateItem requests for modified items are sent alongside the batch writes, at most the
+     * client's max in flight batches of them at once, and rejected updates are reported in the
+     * result.
+     */
+    public <T> CompletableFuture<WriteResult> save(Tracked<T> tracked, String tableName,
+                                                   SaveMode mode) {
+        ChangeSet changes = tracked.getSnapshot().diff(WriteBatches.items(tracked.getRoot()));
+        CompletableFuture<WriteResult> written =
+                write(tableName, WriteBatches.writes(changes, mode));
+        if (mode == SaveMode.UPDATE) {
+            written = written.thenCombine(update(tableName, changes.getUpdates()),
+                    WriteResult::withUpdates);
+        }
+        return invalidating(written, tracked.getRoot(), tableName).thenApply(result -> {
+            if (result.isComplete()) {
+                tracked.setSnapshot(changes.getSnapshot());
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<WriteResult> update(String tableName, List<ItemUpdate> updates) {
+        Iterator<UpdateItemRequest> requests = updates.stream()
+                .filter(update -> !ItemUpdates.isEmpty(update))
+                .map(update -> ItemUpdates.request(tableName, update))
+                .iterator();
+        return AsyncDispatch.all(requests, this::update, maxInFlightBatches)
+                .thenApply(SquilliamAsyncClient::merge);
+    }
+
+    /**
+     * Sends a single update, a failure being reported in the result rather than failing it.
+     */
+    private CompletableFuture<WriteResult> update(UpdateItemRequest request) {
+        return dynamoDbClient.updateItem(request).handle((response, e) -> Objects.isNull(e)
+                ? new WriteResult(List.of(), List.of(), List.of(response))
+                : new WriteResult(List.of(), List.of(), List.of(),
+                        List.of(new UpdateFailure(request, Concurrency.unwrap(e)))));
+    }
+
+    private CompletableFuture<WriteResult> write(String tableName, Iterator<WriteRequest> writes) {
+        return AsyncDispatch.all(WriteBatches.batches(writes),
+                        batch -> writeBatch(tableName, batch, 1), maxInFlightBatches)
+                .thenApply(SquilliamAsyncClient::merge);
+    }
+
+    /**
+     * Sends the batch once its backoff for the attempt has passed, and keeps resending whatever
+     * comes back unprocessed while the retry policy allows.
+     */
+    private CompletableFuture<WriteResult> writeBatch(String tableName, List<WriteRequest> batch,
+                                                      int attempt) {
+        return after(retryPolicy.delay(attempt))
+                .thenCompose(ready ->
+                        dynamoDbClient.batchWriteItem(WriteBatches.request(tableName, batch)))
+                .thenCompose(response -> {
+                    List<WriteRequest> unprocessed = WriteBatches.unprocessed(response, tableName);
+                    if (unprocessed.isEmpty() || !retryPolicy.canRetry(attempt)) {
+                        return CompletableFuture.completedFuture(
+                                new WriteResult(List.of(response), unprocessed));
+                    }
+                    WriteResult result = new WriteResult(List.of(response), List.of());
+                    return writeBatch(tableName, unprocessed, attempt + 1)
+                            .thenApply(retried -> merge(List.of(result, retried)));
+                });
+    }
+
+    /**
+     * Completes once the delay has passed, without tying up a thread in the meantime.
+     */
+    private static CompletableFuture<Void> after(Duration delay) {
+        return delay.isZero()
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(
+                        delay.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private static WriteResult merge(List<WriteResult> results) {
+        List<BatchWriteItemResponse> responses = new ArrayList<>();
+        List<WriteRequest> unprocessed = new ArrayList<>();
+        List<UpdateItemResponse> updates = new ArrayList<>();
+        List<UpdateFailure> failedUpdates = new ArrayList<>();
+        for (WriteResult result : results) {
+            responses.addAll(result.getResponses());
+            unprocessed.addAll(result.getUnprocessed());
+            updates.addAll(result.getUpdates());
+            failedUpdates.addAll(result.getFailedUpdates());
+        }
+        return new WriteResult(responses, unprocessed, updates, failedUpdates);
+    }
+
+    /**
+     * Deletes every item the request matches, as SquilliamClient.deleteAll does. The batches of
+     * a page are sent as soon as the page arrives, at most the client's max in flight batches at
+     * once.
+     */
+    public CompletableFuture<WriteResult> deleteAll(QueryRequest request) {
+        return tableKeys(request.tableName())
+                .thenCompose(keyNames -> deleteKeys(Deletes.keysOnly(request, keyNames)))
+                .whenComplete((result, e) -> {
+                    if (Objects.nonNull(cache)) {
+                        cache.invalidateTable(request.tableName());
+                    }
+                });
+    }
+
+    /**
+     * Deletes the aggregate of a root item, i.e. the whole partition the root lives in.
+     */
+    public <T> CompletableFuture<WriteResult> deleteAll(T root, String tableName) {
+        QueryRequest partition = Deletes.partition(root, tableName);
+        return invalidating(
+                deleteKeys(Deletes.keysOnly(partition, Deletes.keyNames(root.getClass()))),
+                root, tableName);
+    }
+
+    /**
+     * Drops cached aggregates sharing a partition with the root once its write completes,
+     * whether or not it succeeded.
+     */
+    private <R> CompletableFuture<R> invalidating(CompletableFuture<R> write, Object root,
+                                                  String tableName) {
+        if (Objects.isNull(cache)) {
+            return write;
+        }
+        return write.whenComplete((result, e) -> cache.invalidate(root, tableName));
+    }
+
+    /**
+     * Deletes the items of every page of the keys-only request. The batches of a page go out
+     * with the same bound as writes, and the next page is only handed over once they are done,
+     * so a large partition doesn't pile up deletes (the next page is already being read).
+     */
+    private CompletableFuture<WriteResult> deleteKeys(QueryRequest request) {
+        List<WriteResult> results = new ArrayList<>();
+        Function<List<Map<String, AttributeValue>>, CompletableFuture<Void>> sink = keys -> {
+            Iterator<WriteRequest> deletes = keys.stream().map(WriteBatches::delete).iterator();
+            return write(request.tableName(), deletes).thenAccept(results::add);
+        };
+        return queryPages(request, sink, pageOptions.unguarded())
+                .thenApply(done -> merge(results));
+    }
+
+    private CompletableFuture<List<String>> tableKeys(String tableName) {
+        List<String> keyNames = tableKeys.get(tableName);
+        if (Objects.nonNull(keyNames)) {
+            return CompletableFuture.completedFuture(keyNames);
+        }
+        DescribeTableRequest request = DescribeTableRequest.builder().tableName(tableName).build();
+        return dynamoDbClient.describeTable(request).thenApply(response -> {
+            List<String> described = Deletes.keyNames(response.table());
+            tableKeys.put(tableName, described);
+            return described;
+        });
+    }
+
+    /**
+     * Reads only the attributes the target maps, unless turned off or the caller chose otherwise.
+     */
+    private QueryRequest project(QueryRequest request, Class<?> targetClass) {
+        return autoProjection ? Projection.of(targetClass, itemAttrName).apply(request) : request;
+    }
+
+    private ScanRequest project(ScanRequest request, Class<?> targetClass) {
+        return autoProjection ? Projection.of(targetClass, itemAttrName).apply(request) : request;
+    }
+
+    /**
+     * Queries every page of the request, handing each page's items to the sink. The sink is only
+     * ever called by one thread at a time and in page order, so it doesn't need to be thread
+     * safe.
+     */
+    private CompletableFuture<Void> queryDynamo(QueryRequest request,
+                                                Consumer<List<Map<String, AttributeValue>>> sink) {
+        return queryPages(request, items -> {
+            sink.accept(items);
+            return CompletableFuture.completedFuture(null);
+        }, pageOptions);
+    }
+
+    /**
+     * Queries every page of the request, handing each page's items to a sink which completes
+     * once it is done with them. As with queryDynamo the sink is called in page order, and a
+     * page is only handed over once the sink is done with the previous one.
+     */
+    private CompletableFuture<Void> queryPages(
+            QueryRequest request,
+            Function<List<Map<String, AttributeValue>>, CompletableFuture<Void>> sink,
+            PageOptions options) {
+        Paginator paginator = new Paginator(request, options);
+        return queryPage(paginator, dynamoDbClient.query(paginator.first()), sink);
+    }
+
+    /**
+     * Once the page arrives, requests the following page before handing this one to the sink,
+     * so the network and the sink overlap. The following page is only looked at once the sink
+     * is done with this one, which keeps the sink sequential, and a failed sink fails the query
+     * without requesting any page past the one already in flight.
+     */
+    private CompletableFuture<Void> queryPage(
+            Paginator paginator, CompletableFuture<QueryResponse> page,
+            Function<List<Map<String, AttributeValue>>, CompletableFuture<Void>> sink) {
+        return page.thenCompose(response -> {
+            QueryRequest next = paginator.next(response);
+            CompletableFuture<QueryResponse> following = Objects.isNull(next)
+                    ? null
+                    : dynamoDbClient.query(next);
+            return sink.apply(response.items()).thenCompose(accepted -> Objects.isNull(following)
+                    ? CompletableFuture.completedFuture(null)
+                    : queryPage(paginator, following, sink));
+        });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private DynamoDbAsyncClient dynamoDbClient;
+        private String itemAttrName;
+        private Integer pageSize;
+        private int maxPages = PageOptions.UNBOUNDED;
+        private int maxItems = PageOptions.UNBOUNDED;
+        private RetryPolicy retryPolicy = RetryPolicy.defaults();
+        private boolean autoProjection = true;
+        private int maxConcurrentLoads = BulkLoader.DEFAULT_MAX_CONCURRENT_LOADS;
+        private int maxInFlightBatches = BatchWriter.DEFAULT_MAX_IN_FLIGHT;
+        private AggregateCache cache;
+        private LoadSharing loadSharing = LoadSharing.NONE;
+
+        public Builder itemAttrName(String itemAttrName) {
+            this.itemAttrName = itemAttrName;
+            return this;
+        }
+
+        public Builder dynamoDbClient(DynamoDbAsyncClient client) {
+            this.dynamoDbClient = client;
+            return this;
+        }
+
+        /**
+         * Eagerly registers the schemas of the provided models so the first loads and writes
+         * don't pay for bean introspection.
+         */
+        public Builder models(Class<?>... models) {
+            SchemaRegistry.global().register(models);
+            return this;
+        }
+
+        /**
+         * Limit sent with each query page, defaults to Dynamo's own 1 MB pages.
+         */
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Most pages a single load or query may fetch before failing, unbounded by default.
+         */
+        public Builder maxPages(int maxPages) {
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        /**
+         * Most items a single load or query may fetch before failing, unbounded by default.
+         */
+        public Builder maxItems(int maxItems) {
+            this.maxItems = maxItems;
+            return this;
+        }
+
+        /**
+         * How unprocessed batch write items are retried.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Whether loads and queries which don't set their own projection only read the
+         * attributes the target maps, on by default.
+         */
+        public Builder autoProjection(boolean autoProjection) {
+            this.autoProjection = autoProjection;
+            return this;
+        }
+
+        /**
+         * Most loads a single loadAll keeps in flight at once.
+         */
+        public Builder maxConcurrentLoads(int maxConcurrentLoads) {
+            if (maxConcurrentLoads < 1) {
+                throw new IllegalArgumentException("Max concurrent loads must be positive");
+            }
+            this.maxConcurrentLoads = maxConcurrentLoads;
+            return this;
+        }
+
+        /**
+         * Most write batches a single write keeps in flight at once.
+         */
+        public Builder maxInFlightBatches(int maxInFlightBatches) {
+            if (maxInFlightBatches < 1) {
+                throw new IllegalArgumentException("Max in flight batches must be positive");
+            }
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+         * Cache to serve loads from, as for SquilliamClient.
+         */
+        public Builder cache(AggregateCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * How concurrent loads of the same aggregate are coalesced, as for SquilliamClient.
+         */
+        public Builder loadSharing(LoadSharing loadSharing) {
+            this.loadSharing = loadSharing;
+            return this;
+        }
+
+        public SquilliamAsyncClient build() {
+            return new SquilliamAsyncClient(this);
+        }
+    }
+}
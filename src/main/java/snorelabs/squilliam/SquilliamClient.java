@@ -1,89 +1,467 @@
 package snorelabs.squilliam;
 
-import snorelabs.squilliam.core.DomainTransformer;
-import snorelabs.squilliam.core.Partition;
-import snorelabs.squilliam.core.PartitionAggregator;
+import snorelabs.squilliam.core.AggregateMapper;
+import snorelabs.squilliam.core.AggregateMappers;
+import snorelabs.squilliam.core.ChangeSet;
+import snorelabs.squilliam.core.KeyCondition;
+import snorelabs.squilliam.core.PartitionAccumulator;
 import snorelabs.squilliam.core.PartitionTransformer;
+import snorelabs.squilliam.core.Projection;
+import snorelabs.squilliam.core.SchemaRegistry;
+import snorelabs.squilliam.core.Snapshot;
 import snorelabs.squilliam.core.TargetDescriber;
 import snorelabs.squilliam.core.TransformTarget;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
-import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SquilliamClient {
     private DynamoDbClient dynamoDbClient;
     private String itemAttrName;
-
-    private static final int DYNAMO_BATCH_SIZE = 25;
+    private PageOptions pageOptions;
+    private Executor executor;
+    private boolean autoProjection;
+    private final KeyQueries keyQueries = new KeyQueries(this::project);
+    private BatchWriter batchWriter;
+    private UpdateWriter updateWriter;
+    private TransactionWriter transactionWriter;
+    private BulkLoader bulkLoader;
+    private ReferenceResolver referenceResolver;
+    private AggregateCache cache;
+    private SingleFlight singleFlight;
+    private final ConcurrentMap<String, List<String>> tableKeys = new ConcurrentHashMap<>();
 
     public SquilliamClient(DynamoDbClient client, String itemAttrName) {
-        this.dynamoDbClient = client;
-        this.itemAttrName = itemAttrName;
+        this(builder().dynamoDbClient(client).itemAttrName(itemAttrName));
+    }
+
+    private SquilliamClient(Builder builder) {
+        this.dynamoDbClient = builder.dynamoDbClient;
+        this.itemAttrName = builder.itemAttrName;
+        this.pageOptions = new PageOptions(builder.pageSize, builder.maxPages, builder.maxItems);
+        this.autoProjection = builder.autoProjection;
+        this.executor = builder.executor;
+        this.batchWriter = new BatchWriter(builder.dynamoDbClient, builder.executor,
+                builder.maxInFlightBatches, builder.retryPolicy);
+        this.updateWriter = new UpdateWriter(builder.dynamoDbClient, builder.executor,
+                builder.maxInFlightBatches);
+        this.transactionWriter = new TransactionWriter(builder.dynamoDbClient, builder.retryPolicy);
+        this.bulkLoader = new BulkLoader(builder.executor, builder.maxConcurrentLoads);
+        this.referenceResolver = new ReferenceResolver(builder.dynamoDbClient, builder.retryPolicy);
+        this.cache = builder.cache;
+        this.singleFlight = new SingleFlight(builder.loadSharing, builder.itemAttrName);
     }
 
     /**
-     * Queries Dynamo using the provided request and builds an instance of the target class using
-     * the retrieved records.
-     * TODO: Support load all as with write all
+     * Queries Dynamo using the provided request, following every page of the partition, and
+     * builds an instance of the target class using the retrieved records. Pages are accumulated
+     * into the target as they arrive so only one page of raw items is held at a time. A mapper
+     * generated for the target class at compile time is preferred over the reflective
+     * transformer. References to items outside the partition are then read by key. With a cache,
+     * aggregates it holds are returned without going to Dynamo at all. With load sharing, loads
+     * of the same request made while one is in flight wait for its result instead of querying.
      */
     public <T> T load(QueryRequest request, Class<T> classTarget) {
-        QueryResponse response = queryDynamo(request);
-        Partition partition = PartitionAggregator.aggregate(this.itemAttrName, response.items());
+        if (Objects.isNull(cache)) {
+            return singleFlight.load(classTarget, request,
+                    () -> loadUncached(request, classTarget));
+        }
+        Optional<T> cached = cache.get(classTarget, request);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return singleFlight.load(classTarget, request, () -> {
+            long generation = cache.getGeneration();
+            T root = loadUncached(request, classTarget);
+            cache.put(classTarget, request, root, generation);
+            return root;
+        });
+    }
+
+    private <T> T loadUncached(QueryRequest request, Class<T> classTarget) {
+        T root = build(request, TargetDescriber.describe(classTarget),
+                AggregateMappers.find(classTarget));
+        References references = new References();
+        references.add(root, request.tableName());
+        referenceResolver.resolve(references);
+        return root;
+    }
+
+    private <T> T build(QueryRequest request, TransformTarget<T> target,
+                       Optional<AggregateMapper<T>> mapper) {
+        QueryRequest projected = project(request, target.getModel());
+        if (mapper.isPresent()) {
+            AggregateMapper.Accumulator<T> accumulator = mapper.get().accumulator();
+            for (QueryResponse response : queryDynamo(projected)) {
+                accumulator.acceptAll(itemAttrName, response.items());
+            }
+            return accumulator.build();
+        }
+        PartitionAccumulator<T> accumulator = new PartitionAccumulator<>(itemAttrName, target);
+        for (QueryResponse response : queryDynamo(projected)) {
+            accumulator.acceptAll(response.items());
+        }
+        return accumulator.build();
+    }
+
+    /**
+     * Loads many aggregates of the target class at once, see the overload with a table.
+     */
+    public <T> List<LoadResult<T>> loadAll(Collection<QueryRequest> requests,
+                                           Class<T> classTarget) {
+        return loadAll(requests, classTarget, null);
+    }
+
+    /**
+     * Loads many aggregates of the target class at once, each from a QueryRequest or from a
+     * partition key value of the table (as load by key does). Loads run concurrently, bounded by
+     * the client's max concurrent loads, and share the target's description and mapper. Results
+     * come back in the order of the keys, a key which fails to load is reported in its result
+     * rather than failing the others. References are resolved once all loads are done, each
+     * distinct referenced item being read once for the whole batch.
+     */
+    public <T> List<LoadResult<T>> loadAll(Collection<?> keys, Class<T> classTarget,
+                                           String tableName) {
         TransformTarget<T> target = TargetDescriber.describe(classTarget);
-        return PartitionTransformer.transform(partition, target);
+        Optional<AggregateMapper<T>> mapper = AggregateMappers.find(classTarget);
+        List<LoadResult<T>> results = bulkLoader.load(new ArrayList<>(keys), key -> {
+            QueryRequest request = key instanceof QueryRequest query
+                    ? query
+                    : keyQueries.request(classTarget, tableName, key, null);
+            return build(request, target, mapper);
+        });
+        References references = new References();
+        for (LoadResult<T> result : results) {
+            if (result.isLoaded()) {
+                references.add(result.getValue(), result.getKey() instanceof QueryRequest query
+                        ? query.tableName()
+                        : tableName);
+            }
+        }
+        referenceResolver.resolve(references);
+        return results;
+    }
+
+    /**
+     * Writes a root item to Dynamo atomically, see the overload with options.
+     */
+    public <T> TransactionResult writeAtomically(T root, String tableName) {
+        return writeAtomically(root, tableName, TransactionOptions.none());
+    }
+
+    /**
+     * Writes a root item to Dynamo with TransactWriteItems, so an aggregate of up to 100 items
+     * is either written in full or not at all, optionally checking the version of the root.
+     * Larger aggregates are written in ordered chunks of 100 with the root last, each chunk
+     * idempotent on retry. Cancellations are reported with the reason for each failed item
+     * rather than thrown.
+     */
+    public <T> TransactionResult writeAtomically(T root, String tableName,
+                                                 TransactionOptions options) {
+        try {
+            return transactionWriter.write(Transactions.chunks(root, tableName, options));
+        } finally {
+            invalidate(root, tableName);
+        }
+    }
+
+    /**
+     * Loads the aggregate as load does, along with a snapshot of its items so that save only
+     * writes what has changed since. Tracked aggregates are meant to be modified, so they are
+     * always loaded fresh rather than shared with the cache.
+     */
+    public <T> Tracked<T> loadTracked(QueryRequest request, Class<T> classTarget) {
+        T root = loadUncached(request, classTarget);
+        return new Tracked<>(root, Snapshot.take(root, WriteBatches.items(root)));
+    }
+
+    /**
+     * Loads the partition with the given partition key, deriving the query from the key of the
+     * target's model.
+     */
+    public <T> T load(Class<T> classTarget, String tableName, Object partitionValue) {
+        return load(classTarget, tableName, partitionValue, null);
+    }
+
+    /**
+     * Loads the items of the partition whose sort key begins with the prefix (the whole partition
+     * for a null prefix), deriving the query from the keys of the target's model. Values can be
+     * strings, numbers, binary or AttributeValues.
+     */
+    public <T> T load(Class<T> classTarget, String tableName, Object partitionValue,
+                      String sortKeyPrefix) {
+        return load(keyQueries.request(classTarget, tableName, partitionValue, sortKeyPrefix),
+                classTarget);
+    }
+
+    /**
+     * Loads the root of the target along with only the named relations (by field name), leaving
+     * the others unset. Rather than reading the whole partition, this queries the sort key prefix
+     * of the root's item type and of each relation's item type (and of the relations nested under
+     * it), all at once, and accumulates the results as they come in. Reads scale with what is
+     * asked for, not with the partition. References are resolved as in load.
+     */
+    public <T> T loadOnly(Class<T> classTarget, String tableName, Object partitionValue,
+                          String... relations) {
+        TransformTarget<T> target = TargetDescriber.describe(classTarget);
+        PartitionAccumulator<T> accumulator = new PartitionAccumulator<>(itemAttrName, target);
+        List<CompletableFuture<Void>> queries = RelationQueries
+                .requests(keyQueries, target, tableName, itemAttrName, partitionValue, relations)
+                .stream()
+                .map(request -> CompletableFuture.runAsync(() -> {
+                    for (QueryResponse response : queryDynamo(request)) {
+                        synchronized (accumulator) {
+                            accumulator.acceptAll(response.items());
+                        }
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+        try {
+            CompletableFuture.allOf(queries.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw Concurrency.unwrap(e);
+        }
+        T root = accumulator.build();
+        References references = new References();
+        references.add(root, tableName);
+        referenceResolver.resolve(references);
+        return root;
     }
 
     /**
      * Queries Dynamo using the provided request and builds a List of the target class from the
-     * retrieved records.
+     * retrieved records of every page, resolving their references as load does.
      */
     public <T> List<T> query(QueryRequest request, Class<T> targetClass) {
-        QueryResponse response = queryDynamo(request);
-        return PartitionTransformer.instances(response.items(), targetClass);
+        List<T> instances = new ArrayList<>();
+        for (QueryResponse response : queryDynamo(project(request, targetClass))) {
+            instances.addAll(PartitionTransformer.instances(response.items(), targetClass));
+        }
+        References references = new References();
+        instances.forEach(instance -> references.add(instance, request.tableName()));
+        referenceResolver.resolve(references);
+        return instances;
+    }
+
+    /**
+     * Scans the whole table in parallel segments, see the overload with a consumer.
+     * The stream must be closed (e.g. with try-with-resources) when it isn't read to the end,
+     * which stops the segments still running.
+     */
+    public <T> Stream<T> scan(ScanRequest request, Class<T> classTarget, int segments) {
+        TransformTarget<T> target = TargetDescriber.describe(classTarget);
+        SegmentedScan<T> scan = new SegmentedScan<>(dynamoDbClient, executor,
+                pageOptions.apply(project(request, classTarget)), segments, itemAttrName,
+                target, KeyCondition.of(classTarget).getPartitionKey());
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(scan, Spliterator.NONNULL), false)
+                .onClose(scan::close);
+    }
+
+    /**
+     * Scans the whole table with as many parallel Segment/TotalSegments workers as segments, on
+     * the client's executor, and gives every aggregate of the target class to the consumer on the
+     * calling thread. Each segment groups the items of a partition into an aggregate as they
+     * arrive, and segments wait for the consumer once a bounded number of aggregates are
+     * buffered, so exports of any size run in constant memory. Unlike load, references are left
+     * unresolved.
+     */
+    public <T> void scan(ScanRequest request, Class<T> classTarget, int segments,
+                         Consumer<? super T> consumer) {
+        try (Stream<T> aggregates = scan(request, classTarget, segments)) {
+            aggregates.forEach(consumer);
+        }
     }
 
     /**
      * Writes a root item to Dynamo in as many batches of 25 (hard limit from DynamoDB API) as
-     * needed.
+     * needed. Batches are sent concurrently, bounded by the client's max in flight batches.
+     * Unprocessed items are retried in later batches according to the client's retry policy, and
+     * any still unprocessed when it gives up are reported in the result.
      */
-    public <T> List<BatchWriteItemResponse> writeAll(T root, String tableName) {
-        List<List<WriteRequest>> writePartitions = writesForRoot(root);
+    public <T> WriteResult writeAll(T root, String tableName) {
+        try {
+            return batchWriter.write(tableName, WriteBatches.writes(root));
+        } finally {
+            invalidate(root, tableName);
+        }
+    }
 
-        return writePartitions.stream()
-                .map(partition -> Map.of(tableName, partition))
-                .map(items -> BatchWriteItemRequest.builder().requestItems(items).build())
-                .map(dynamoDbClient::batchWriteItem)
-                .collect(Collectors.toList());
+    /**
+     * Writes only the items of a tracked aggregate which changed since it was loaded or last
+     * saved: puts for new and modified items, and deletes for items removed from its relations.
+     * The snapshot only moves forward when every write was processed, so a partially failed save
+     * is simply resent in full by the next one.
+     */
+    public <T> WriteResult save(Tracked<T> tracked, String tableName) {
+        return save(tracked, tableName, SaveMode.PUT);
     }
 
     /**
-     * Creates a list of partitions for necessary write batches.
+     * Saves a tracked aggregate as above, writing modified items as the mode says. In UPDATE mode
+     * each modified item gets an UpdateItem with just its changed attributes, sent concurrently
+     * (bounded by the client's max in flight batches) once the batch writes are done.
      */
-    private <T> List<List<WriteRequest>> writesForRoot(T root) {
-        List<WriteRequest> allWrites = DomainTransformer.transform(root)
-                .stream()
-                .map(record -> PutRequest.builder().item(record).build())
-                .map(put -> WriteRequest.builder().putRequest(put).build()).toList();
-        List<List<WriteRequest>> writePartitions = new ArrayList<>();
+    public <T> WriteResult save(Tracked<T> tracked, String tableName, SaveMode mode) {
+        ChangeSet changes = tracked.getSnapshot().diff(WriteBatches.items(tracked.getRoot()));
+        WriteResult result;
+        try {
+            result = batchWriter.write(tableName, WriteBatches.writes(changes, mode));
+            if (mode == SaveMode.UPDATE) {
+                result = result.withUpdates(updateWriter.write(tableName, changes.getUpdates()));
+            }
+        } finally {
+            invalidate(tracked.getRoot(), tableName);
+        }
+        if (result.isComplete()) {
+            tracked.setSnapshot(changes.getSnapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Deletes every item the request matches. The query is narrowed down to the key attributes
+     * of its table (looked up once per table with DescribeTable) and deletes are batched as pages
+     * arrive, so item bodies are never read and only a page of keys is held at a time. Batches
+     * are sent and retried as in writeAll, and the page guards don't apply.
+     */
+    public WriteResult deleteAll(QueryRequest request) {
+        List<String> keyNames = tableKeys(request.tableName());
+        try {
+            return deleteKeys(Deletes.keysOnly(request, keyNames));
+        } finally {
+            // Which partitions the query matched isn't known without reading them all
+            if (Objects.nonNull(cache)) {
+                cache.invalidateTable(request.tableName());
+            }
+        }
+    }
+
+    /**
+     * Deletes the aggregate of a root item, i.e. the whole partition the root lives in, as
+     * deleteAll does for a query of that partition.
+     */
+    public <T> WriteResult deleteAll(T root, String tableName) {
+        QueryRequest partition = Deletes.partition(root, tableName);
+        try {
+            return deleteKeys(Deletes.keysOnly(partition, Deletes.keyNames(root.getClass())));
+        } finally {
+            invalidate(root, tableName);
+        }
+    }
+
+    /**
+     * Drops cached aggregates sharing a partition with a root which was just written.
+     */
+    private void invalidate(Object root, String tableName) {
+        if (Objects.nonNull(cache)) {
+            cache.invalidate(root, tableName);
+        }
+    }
 
-        for (int i = 0; i < allWrites.size(); i += DYNAMO_BATCH_SIZE) {
-            writePartitions.add(allWrites.subList(i, DYNAMO_BATCH_SIZE));
+    private WriteResult deleteKeys(QueryRequest request) {
+        Iterator<QueryResponse> pages = queryDynamo(request, pageOptions.unguarded()).iterator();
+        Iterator<WriteRequest> deletes = new Iterator<>() {
+            private Iterator<Map<String, AttributeValue>> keys = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!keys.hasNext() && pages.hasNext()) {
+                    keys = pages.next().items().iterator();
+                }
+                return keys.hasNext();
+            }
+
+            @Override
+            public WriteRequest next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return WriteBatches.delete(keys.next());
+            }
+        };
+        return batchWriter.write(request.tableName(), deletes);
+    }
+
+    /**
+     * Gets the key attributes of the table, describing it the first time. The table is described
+     * outside of the map so a slow DescribeTable doesn't hold up the map for other tables; racing
+     * callers may both describe it, and the first to finish wins.
+     */
+    private List<String> tableKeys(String tableName) {
+        List<String> keyNames = tableKeys.get(tableName);
+        if (Objects.nonNull(keyNames)) {
+            return keyNames;
         }
-        return writePartitions;
+        DescribeTableRequest request = DescribeTableRequest.builder().tableName(tableName).build();
+        List<String> described = Deletes.keyNames(dynamoDbClient.describeTable(request).table());
+        List<String> raced = tableKeys.putIfAbsent(tableName, described);
+        return Objects.nonNull(raced) ? raced : described;
     }
 
+    /**
+     * Reads only the attributes the target maps, unless turned off or the caller chose otherwise.
+     */
+    private QueryRequest project(QueryRequest request, Class<?> targetClass) {
+        return autoProjection ? Projection.of(targetClass, itemAttrName).apply(request) : request;
+    }
+
+    private ScanRequest project(ScanRequest request, Class<?> targetClass) {
+        return autoProjection ? Projection.of(targetClass, itemAttrName).apply(request) : request;
+    }
+
+    private Iterable<QueryResponse> queryDynamo(QueryRequest request) {
+        return queryDynamo(request, pageOptions);
+    }
+
+    /**
+     * Lazily queries each page of the request as it is iterated.
+     */
+    private Iterable<QueryResponse> queryDynamo(QueryRequest request, PageOptions options) {
+        return () -> new Iterator<>() {
+            private final Paginator paginator = new Paginator(request, options);
+            private QueryRequest next = paginator.first();
+
+            @Override
+            public boolean hasNext() {
+                return Objects.nonNull(next);
+            }
 
-    private QueryResponse queryDynamo(QueryRequest request) {
-        return dynamoDbClient.query(request);
+            @Override
+            public QueryResponse next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                QueryResponse response = dynamoDbClient.query(next);
+                next = paginator.next(response);
+                return response;
+            }
+        };
     }
 
     public static Builder builder() {
@@ -93,6 +471,16 @@ public class SquilliamClient {
     public static class Builder {
         private DynamoDbClient dynamoDbClient;
         private String itemAttrName;
+        private Integer pageSize;
+        private int maxPages = PageOptions.UNBOUNDED;
+        private int maxItems = PageOptions.UNBOUNDED;
+        private Executor executor = Concurrency.defaultExecutor();
+        private int maxInFlightBatches = BatchWriter.DEFAULT_MAX_IN_FLIGHT;
+        private RetryPolicy retryPolicy = RetryPolicy.defaults();
+        private int maxConcurrentLoads = BulkLoader.DEFAULT_MAX_CONCURRENT_LOADS;
+        private boolean autoProjection = true;
+        private AggregateCache cache;
+        private LoadSharing loadSharing = LoadSharing.NONE;
 
         public Builder itemAttrName(String itemAttrName) {
             this.itemAttrName = itemAttrName;
@@ -104,8 +492,104 @@ public class SquilliamClient {
             return this;
         }
 
+        /**
+         * Eagerly registers the schemas of the provided models so the first loads and writes
+         * don't pay for bean introspection.
+         */
+        public Builder models(Class<?>... models) {
+            SchemaRegistry.global().register(models);
+            return this;
+        }
+
+        /**
+         * Limit sent with each query page, defaults to Dynamo's own 1 MB pages.
+         */
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Most pages a single load or query may fetch before failing, unbounded by default.
+         */
+        public Builder maxPages(int maxPages) {
+            this.maxPages = maxPages;
+            return this;
+        }
+
+        /**
+         * Most items a single load or query may fetch before failing, unbounded by default.
+         */
+        public Builder maxItems(int maxItems) {
+            this.maxItems = maxItems;
+            return this;
+        }
+
+        /**
+         * Executor requests are sent on, defaults to virtual threads where the runtime has them
+         * and a cached pool of daemon threads otherwise.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Most write batches a single writeAll keeps in flight at once.
+         */
+        public Builder maxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+         * Most loads a single loadAll keeps in flight at once.
+         */
+        public Builder maxConcurrentLoads(int maxConcurrentLoads) {
+            if (maxConcurrentLoads < 1) {
+                throw new IllegalArgumentException("Max concurrent loads must be positive");
+            }
+            this.maxConcurrentLoads = maxConcurrentLoads;
+            return this;
+        }
+
+        /**
+         * How unprocessed batch write items are retried.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Whether loads and queries which don't set their own projection only read the
+         * attributes the target maps, on by default.
+         */
+        public Builder autoProjection(boolean autoProjection) {
+            this.autoProjection = autoProjection;
+            return this;
+        }
+
+        /**
+         * Cache to serve loads from, none by default. Writes and deletes through the client
+         * invalidate the partitions they touch.
+         */
+        public Builder cache(AggregateCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Whether concurrent loads of the same request and target class are coalesced into one,
+         * and whether they then share the loaded instance or get copies of it. Off by default.
+         */
+        public Builder loadSharing(LoadSharing loadSharing) {
+            this.loadSharing = loadSharing;
+            return this;
+        }
+
         public SquilliamClient build() {
-            return new SquilliamClient(dynamoDbClient, itemAttrName);
+            return new SquilliamClient(this);
         }
     }
 }
@@ -0,0 +1,30 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.Snapshot;
+
+/**
+ * A loaded aggregate along with the snapshot of its items as they were loaded, so that saving it
+ * only writes what changed. The root can be modified freely, and every successful save moves the
+ * snapshot forward.
+ */
+public class Tracked<T> {
+    private final T root;
+    private volatile Snapshot snapshot;
+
+    Tracked(T root, Snapshot snapshot) {
+        this.root = root;
+        this.snapshot = snapshot;
+    }
+
+    public T getRoot() {
+        return root;
+    }
+
+    Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+}
@@ -0,0 +1,30 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+
+/**
+ * An item of a cancelled transaction along with the reason Dynamo gave for it, e.g. a failed
+ * version check on the root.
+ */
+public class TransactionFailure {
+    private final TransactWriteItem item;
+    private final CancellationReason reason;
+
+    public TransactionFailure(TransactWriteItem item, CancellationReason reason) {
+        this.item = item;
+        this.reason = reason;
+    }
+
+    public TransactWriteItem getItem() {
+        return item;
+    }
+
+    public CancellationReason getReason() {
+        return reason;
+    }
+
+    public String getCode() {
+        return reason.code();
+    }
+}
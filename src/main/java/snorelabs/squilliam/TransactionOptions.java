@@ -0,0 +1,45 @@
+package snorelabs.squilliam;
+
+import java.util.Objects;
+
+/**
+ * Options for atomic saves. With a version attribute, the save only goes through if the root item
+ * in Dynamo is still at the expected version (or doesn't exist yet when no version is expected),
+ * which is how concurrent writers of the same aggregate find out about each other. Bumping the
+ * version on the root before saving is up to the caller.
+ */
+public class TransactionOptions {
+    private final String versionAttribute;
+    private final Long expectedVersion;
+
+    /**
+     * @param versionAttribute - Numeric attribute of the root item holding its version, or null
+     *                         for no version check.
+     * @param expectedVersion - Version the root must currently be at, or null if it must not
+     *                        exist yet.
+     */
+    public TransactionOptions(String versionAttribute, Long expectedVersion) {
+        this.versionAttribute = versionAttribute;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public static TransactionOptions none() {
+        return new TransactionOptions(null, null);
+    }
+
+    public static TransactionOptions versioned(String versionAttribute, Long expectedVersion) {
+        return new TransactionOptions(Objects.requireNonNull(versionAttribute), expectedVersion);
+    }
+
+    public String getVersionAttribute() {
+        return versionAttribute;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public boolean isVersioned() {
+        return Objects.nonNull(versionAttribute);
+    }
+}
@@ -0,0 +1,48 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import java.util.List;
+
+/**
+ * The outcome of an atomic save. Aggregates too large for one transaction are saved in ordered
+ * chunks, so a save can stop part way: every chunk before the failed one is committed, nothing
+ * after it was sent, and the failures say exactly which items of the failed chunk were at fault.
+ */
+public class TransactionResult {
+    private final List<TransactWriteItemsResponse> responses;
+    private final int committedChunks;
+    private final int totalChunks;
+    private final List<TransactionFailure> failures;
+
+    public TransactionResult(List<TransactWriteItemsResponse> responses, int committedChunks,
+                             int totalChunks, List<TransactionFailure> failures) {
+        this.responses = responses;
+        this.committedChunks = committedChunks;
+        this.totalChunks = totalChunks;
+        this.failures = failures;
+    }
+
+    public List<TransactWriteItemsResponse> getResponses() {
+        return responses;
+    }
+
+    public int getCommittedChunks() {
+        return committedChunks;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    /**
+     * Items of the cancelled chunk with a reason other than None.
+     */
+    public List<TransactionFailure> getFailures() {
+        return failures;
+    }
+
+    public boolean isCommitted() {
+        return committedChunks == totalChunks;
+    }
+}
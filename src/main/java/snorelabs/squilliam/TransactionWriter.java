@@ -0,0 +1,60 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionInProgressException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends transaction chunks one after another, each only once the previous one committed. A chunk
+ * cancelled only because of contention is resent with the same client request token according to
+ * the retry policy, any other cancellation stops the save and is reported item by item.
+ */
+class TransactionWriter {
+    private final DynamoDbClient dynamoDbClient;
+    private final RetryPolicy retryPolicy;
+
+    TransactionWriter(DynamoDbClient dynamoDbClient, RetryPolicy retryPolicy) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.retryPolicy = retryPolicy;
+    }
+
+    TransactionResult write(List<Transactions.Chunk> chunks) {
+        List<TransactWriteItemsResponse> responses = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Transactions.Chunk chunk = chunks.get(i);
+            int attempt = 1;
+            while (true) {
+                try {
+                    responses.add(dynamoDbClient.transactWriteItems(chunk.request()));
+                    break;
+                } catch (TransactionCanceledException e) {
+                    if (!Transactions.isTransient(e) || !retryPolicy.canRetry(attempt)) {
+                        return new TransactionResult(responses, i, chunks.size(),
+                                Transactions.failures(chunk, e));
+                    }
+                } catch (TransactionInProgressException e) {
+                    // The same token is still being applied, so asking again is safe
+                    if (!retryPolicy.canRetry(attempt)) {
+                        throw e;
+                    }
+                }
+                attempt++;
+                sleep(retryPolicy.delay(attempt));
+            }
+        }
+        return new TransactionResult(responses, chunks.size(), chunks.size(), List.of());
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            throw Concurrency.interrupted(e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.DomainTransformer;
+import snorelabs.squilliam.core.SchemaRegistry;
+import snorelabs.squilliam.core.TargetDescriber;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Turns roots into TransactWriteItems chunks, shared by the blocking and async clients.
+ */
+class Transactions {
+    static final int DYNAMO_TRANSACTION_SIZE = 100;
+
+    private static final Set<String> TRANSIENT_CODES =
+            Set.of("TransactionConflict", "ThrottlingError", "ProvisionedThroughputExceeded");
+
+    /**
+     * Splits the items of the root into transactions. An aggregate which fits in one transaction
+     * is saved in one. Otherwise the chunks are sent in order with the root in the last one, so
+     * readers never see a root whose members haven't all been written, and a version check on the
+     * root rides along with the first chunk so a conflicting save fails before writing anything.
+     * ============================================================================================
+     * items = to_items(root)                            # the root item comes last
+     * if (size(items) <= 100):
+     *     return [puts(items)]
+     * chunks = partition([check(root)] + puts(items), 100)
+     */
+    static List<Chunk> chunks(Object root, String tableName, TransactionOptions options) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        DomainTransformer.iterator(root).forEachRemaining(items::add);
+        boolean rootInDynamo = !(root instanceof List<?>)
+                && TargetDescriber.describe(root.getClass()).isInDynamo();
+        if (options.isVersioned() && !rootInDynamo) {
+            throw new IllegalArgumentException("Version checks need a root which is a Dynamo item");
+        }
+
+        List<TransactWriteItem> writes = new ArrayList<>();
+        Iterator<Map<String, AttributeValue>> remaining = items.iterator();
+        while (remaining.hasNext()) {
+            Map<String, AttributeValue> item = remaining.next();
+            boolean isRoot = rootInDynamo && !remaining.hasNext();
+            writes.add(isRoot ? rootPut(tableName, item, options) : put(tableName, item, null));
+        }
+        if (options.isVersioned() && writes.size() > DYNAMO_TRANSACTION_SIZE) {
+            writes.add(0, rootCheck(root, tableName, items.get(items.size() - 1), options));
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < writes.size(); i += DYNAMO_TRANSACTION_SIZE) {
+            int end = Math.min(writes.size(), i + DYNAMO_TRANSACTION_SIZE);
+            chunks.add(new Chunk(new ArrayList<>(writes.subList(i, end))));
+        }
+        return chunks;
+    }
+
+    private static TransactWriteItem rootPut(String tableName, Map<String, AttributeValue> item,
+                                             TransactionOptions options) {
+        return put(tableName, item, options.isVersioned() ? options : null);
+    }
+
+    private static TransactWriteItem put(String tableName, Map<String, AttributeValue> item,
+                                         TransactionOptions versioned) {
+        Put.Builder put = Put.builder().tableName(tableName).item(item);
+        if (Objects.nonNull(versioned)) {
+            put.conditionExpression(condition(versioned))
+                    .expressionAttributeNames(Map.of("#v", versioned.getVersionAttribute()));
+            values(versioned).ifPresent(put::expressionAttributeValues);
+        }
+        return TransactWriteItem.builder().put(put.build()).build();
+    }
+
+    private static TransactWriteItem rootCheck(Object root, String tableName,
+                                               Map<String, AttributeValue> rootItem,
+                                               TransactionOptions options) {
+        ConditionCheck.Builder check = ConditionCheck.builder()
+                .tableName(tableName)
+                .key(key(root, rootItem))
+                .conditionExpression(condition(options))
+                .expressionAttributeNames(Map.of("#v", options.getVersionAttribute()));
+        values(options).ifPresent(check::expressionAttributeValues);
+        return TransactWriteItem.builder().conditionCheck(check.build()).build();
+    }
+
+    private static String condition(TransactionOptions options) {
+        return Objects.isNull(options.getExpectedVersion())
+                ? "attribute_not_exists(#v)"
+                : "#v = :v";
+    }
+
+    private static Optional<Map<String, AttributeValue>> values(TransactionOptions options) {
+        return Optional.ofNullable(options.getExpectedVersion())
+                .map(version -> Map.of(":v",
+                        AttributeValue.builder().n(String.valueOf(version)).build()));
+    }
+
+    private static Map<String, AttributeValue> key(Object root,
+                                                   Map<String, AttributeValue> rootItem) {
+        TableMetadata metadata = SchemaRegistry.global().schema(root.getClass()).tableMetadata();
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(metadata.primaryPartitionKey(), rootItem.get(metadata.primaryPartitionKey()));
+        metadata.primarySortKey().ifPresent(sortKey -> key.put(sortKey, rootItem.get(sortKey)));
+        return key;
+    }
+
+    /**
+     * Pairs the cancellation reasons up with the items of the chunk, which Dynamo lists in the
+     * same order, keeping only those which actually failed.
+     */
+    static List<TransactionFailure> failures(Chunk chunk, TransactionCanceledException e) {
+        List<TransactionFailure> failures = new ArrayList<>();
+        if (!e.hasCancellationReasons()) {
+            return failures;
+        }
+        List<CancellationReason> reasons = e.cancellationReasons();
+        for (int i = 0; i < reasons.size() && i < chunk.items.size(); i++) {
+            CancellationReason reason = reasons.get(i);
+            if (Objects.nonNull(reason.code()) && !"None".equals(reason.code())) {
+                failures.add(new TransactionFailure(chunk.items.get(i), reason));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Whether the transaction was only cancelled because of contention, in which case sending
+     * the same chunk again can succeed.
+     */
+    static boolean isTransient(TransactionCanceledException e) {
+        if (!e.hasCancellationReasons()) {
+            return false;
+        }
+        List<String> codes = e.cancellationReasons().stream()
+                .map(CancellationReason::code)
+                .filter(code -> Objects.nonNull(code) && !"None".equals(code))
+                .collect(Collectors.toList());
+        return !codes.isEmpty() && TRANSIENT_CODES.containsAll(codes);
+    }
+
+    /**
+     * A transaction's worth of items, with a client request token of its own. The token is
+     * reused when the chunk is retried, which makes the retry idempotent: if the first attempt
+     * did go through, Dynamo won't apply it a second time.
+     */
+    static class Chunk {
+        private final List<TransactWriteItem> items;
+        private final String token = UUID.randomUUID().toString();
+
+        private Chunk(List<TransactWriteItem> items) {
+            this.items = items;
+        }
+
+        List<TransactWriteItem> getItems() {
+            return items;
+        }
+
+        TransactWriteItemsRequest request() {
+            return TransactWriteItemsRequest.builder()
+                    .transactItems(items)
+                    .clientRequestToken(token)
+                    .build();
+        }
+    }
+}
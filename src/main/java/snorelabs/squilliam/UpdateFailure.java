@@ -0,0 +1,25 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * An UpdateItem request of a save which Dynamo rejected, along with the exception it threw, e.g.
+ * a failed condition or a throttle the SDK gave up retrying.
+ */
+public class UpdateFailure {
+    private final UpdateItemRequest request;
+    private final RuntimeException cause;
+
+    public UpdateFailure(UpdateItemRequest request, RuntimeException cause) {
+        this.request = request;
+        this.cause = cause;
+    }
+
+    public UpdateItemRequest getRequest() {
+        return request;
+    }
+
+    public RuntimeException getCause() {
+        return cause;
+    }
+}
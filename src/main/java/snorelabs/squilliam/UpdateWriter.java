@@ -0,0 +1,74 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.ItemUpdate;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Sends UpdateItem requests concurrently on an executor, keeping at most a fixed number in
+ * flight, the same way the BatchWriter sends batches. Updates Dynamo rejects are reported in the
+ * result, the way unprocessed batch items are, rather than discarding what the other updates and
+ * the batch writes of the save did.
+ */
+class UpdateWriter {
+    private final DynamoDbClient dynamoDbClient;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    UpdateWriter(DynamoDbClient dynamoDbClient, Executor executor, int maxInFlight) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Sends every non-empty update, the result only holds the update responses and failures.
+     */
+    WriteResult write(String tableName, List<ItemUpdate> updates) {
+        CompletionService<UpdateItemResponse> completions =
+                new ExecutorCompletionService<>(executor);
+        Map<Future<UpdateItemResponse>, UpdateItemRequest> sent = new HashMap<>();
+        List<UpdateItemResponse> responses = new ArrayList<>();
+        List<UpdateFailure> failures = new ArrayList<>();
+        Iterator<ItemUpdate> pending = updates.stream()
+                .filter(update -> !ItemUpdates.isEmpty(update))
+                .iterator();
+        while (pending.hasNext() || !sent.isEmpty()) {
+            while (sent.size() < maxInFlight && pending.hasNext()) {
+                UpdateItemRequest request = ItemUpdates.request(tableName, pending.next());
+                sent.put(completions.submit(() -> dynamoDbClient.updateItem(request)), request);
+            }
+            Future<UpdateItemResponse> done = take(completions);
+            UpdateItemRequest request = sent.remove(done);
+            try {
+                responses.add(done.get());
+            } catch (ExecutionException e) {
+                failures.add(new UpdateFailure(request, Concurrency.unwrap(e)));
+            } catch (InterruptedException e) {
+                throw Concurrency.interrupted(e);
+            }
+        }
+        return new WriteResult(List.of(), List.of(), responses, failures);
+    }
+
+    private static Future<UpdateItemResponse> take(
+            CompletionService<UpdateItemResponse> completions) {
+        try {
+            return completions.take();
+        } catch (InterruptedException e) {
+            throw Concurrency.interrupted(e);
+        }
+    }
+}
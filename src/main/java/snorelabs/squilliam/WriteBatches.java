@@ -0,0 +1,115 @@
+package snorelabs.squilliam;
+
+import snorelabs.squilliam.core.AggregateMappers;
+import snorelabs.squilliam.core.ChangeSet;
+import snorelabs.squilliam.core.DomainTransformer;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Turns roots into BatchWriteItem requests, shared by the blocking and async clients.
+ */
+class WriteBatches {
+    static final int DYNAMO_BATCH_SIZE = 25;
+
+    /**
+     * Creates the put requests for every item of the root. Items are serialized as the requests
+     * are pulled, so the whole aggregate never has to exist in its Dynamo form at once.
+     */
+    static <T> Iterator<WriteRequest> writes(T root) {
+        Iterator<Map<String, AttributeValue>> items = items(root);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public WriteRequest next() {
+                return put(items.next());
+            }
+        };
+    }
+
+    /**
+     * Creates the deletes for the removed items of a change set, and puts for its new items, or
+     * for its modified items as well in PUT mode (UPDATE mode updates them separately).
+     */
+    static Iterator<WriteRequest> writes(ChangeSet changes, SaveMode mode) {
+        List<WriteRequest> writes = new ArrayList<>();
+        List<Map<String, AttributeValue>> puts =
+                mode == SaveMode.PUT ? changes.getChanged() : changes.getAdded();
+        puts.forEach(item -> writes.add(put(item)));
+        changes.getRemoved().forEach(key -> writes.add(delete(key)));
+        return writes.iterator();
+    }
+
+    /**
+     * Groups requests into batches of 25 (hard limit from DynamoDB API) as they are pulled.
+     */
+    static Iterator<List<WriteRequest>> batches(Iterator<WriteRequest> writes) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return writes.hasNext();
+            }
+
+            @Override
+            public List<WriteRequest> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<WriteRequest> batch = new ArrayList<>(DYNAMO_BATCH_SIZE);
+                while (batch.size() < DYNAMO_BATCH_SIZE && writes.hasNext()) {
+                    batch.add(writes.next());
+                }
+                return batch;
+            }
+        };
+    }
+
+    static WriteRequest put(Map<String, AttributeValue> item) {
+        return WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build();
+    }
+
+    static WriteRequest delete(Map<String, AttributeValue> key) {
+        return WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build())
+                .build();
+    }
+
+    static BatchWriteItemRequest request(String tableName, List<WriteRequest> writes) {
+        return BatchWriteItemRequest.builder().requestItems(Map.of(tableName, writes)).build();
+    }
+
+    /**
+     * Gets the requests Dynamo didn't process for the table.
+     */
+    static List<WriteRequest> unprocessed(BatchWriteItemResponse response, String tableName) {
+        if (!response.hasUnprocessedItems() || Objects.isNull(response.unprocessedItems())) {
+            return List.of();
+        }
+        return response.unprocessedItems().getOrDefault(tableName, List.of());
+    }
+
+    /**
+     * Lazily transforms the root into Dynamo items, with its generated mapper if it has one.
+     * Either way items are serialized as they are iterated.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Iterator<Map<String, AttributeValue>> items(T root) {
+        return AggregateMappers.find((Class<T>) root.getClass())
+                .map(mapper -> mapper.items(root))
+                .orElseGet(() -> DomainTransformer.iterator(root));
+    }
+}
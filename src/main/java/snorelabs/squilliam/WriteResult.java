@@ -0,0 +1,71 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.List;
+
+/**
+ * The outcome of a write. Items Dynamo still hadn't processed once the retry policy was exhausted
+ * are reported as unprocessed rather than dropped, and so are the updates Dynamo rejected.
+ */
+public class WriteResult {
+    private final List<BatchWriteItemResponse> responses;
+    private final List<WriteRequest> unprocessed;
+    private final List<UpdateItemResponse> updates;
+    private final List<UpdateFailure> failedUpdates;
+
+    public WriteResult(List<BatchWriteItemResponse> responses, List<WriteRequest> unprocessed) {
+        this(responses, unprocessed, List.of());
+    }
+
+    public WriteResult(List<BatchWriteItemResponse> responses, List<WriteRequest> unprocessed,
+                       List<UpdateItemResponse> updates) {
+        this(responses, unprocessed, updates, List.of());
+    }
+
+    public WriteResult(List<BatchWriteItemResponse> responses, List<WriteRequest> unprocessed,
+                       List<UpdateItemResponse> updates, List<UpdateFailure> failedUpdates) {
+        this.responses = responses;
+        this.unprocessed = unprocessed;
+        this.updates = updates;
+        this.failedUpdates = failedUpdates;
+    }
+
+    /**
+     * Every BatchWriteItem response received, including those for retries.
+     */
+    public List<BatchWriteItemResponse> getResponses() {
+        return responses;
+    }
+
+    /**
+     * Every UpdateItem response received, for saves which update modified items in place.
+     */
+    public List<UpdateItemResponse> getUpdates() {
+        return updates;
+    }
+
+    public List<WriteRequest> getUnprocessed() {
+        return unprocessed;
+    }
+
+    /**
+     * Every UpdateItem request which failed, the others were still sent.
+     */
+    public List<UpdateFailure> getFailedUpdates() {
+        return failedUpdates;
+    }
+
+    public boolean isComplete() {
+        return unprocessed.isEmpty() && failedUpdates.isEmpty();
+    }
+
+    /**
+     * The result of the batch writes of a save along with the outcome of its updates.
+     */
+    WriteResult withUpdates(WriteResult updates) {
+        return new WriteResult(responses, unprocessed, updates.updates, updates.failedUpdates);
+    }
+}
@@ -0,0 +1,87 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A mapper for a single aggregate root class, generated at compile time by the
+ * AggregateMapperProcessor. Generated mappers do the same job as the PartitionTransformer and the
+ * DomainTransformer, but with direct field access and a switch on the item type rather than
+ * reflection.
+ */
+public interface AggregateMapper<T> {
+    /**
+     * The root class this mapper was generated for.
+     */
+    Class<T> modelClass();
+
+    /**
+     * Starts building an instance of the root item by item, the generated equivalent of the
+     * PartitionAccumulator, so pages can be dropped as soon as they're accepted.
+     */
+    Accumulator<T> accumulator();
+
+    /**
+     * Builds an instance of the root from the partition, the generated equivalent of
+     * PartitionTransformer.transform.
+     */
+    default T fromPartition(Partition partition) {
+        Accumulator<T> accumulator = accumulator();
+        for (DynamoAggregate aggregate : partition.getAggregates()) {
+            for (Map<String, AttributeValue> item : aggregate.getDynamoItems()) {
+                accumulator.accept(aggregate.getItemType(), item);
+            }
+        }
+        return accumulator.build();
+    }
+
+    /**
+     * Lazily transforms the root into Dynamo items, the generated equivalent of
+     * DomainTransformer.iterator. Members are only serialized as the items are pulled.
+     */
+    Iterator<Map<String, AttributeValue>> items(T root);
+
+    /**
+     * Transforms the root into Dynamo items, the generated equivalent of
+     * DomainTransformer.transform.
+     */
+    default List<Map<String, AttributeValue>> toItems(T root) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items(root).forEachRemaining(items::add);
+        return items;
+    }
+
+    /**
+     * Builds an instance of the root from the items of its partition, in any order.
+     */
+    interface Accumulator<T> {
+        /**
+         * Accepts a single item of the given type, converting it if the root has a place for it.
+         */
+        void accept(String itemType, Map<String, AttributeValue> item);
+
+        /**
+         * Accepts a page of items, typed by the given attribute. Items without a type are
+         * ignored, as with the PartitionAccumulator.
+         */
+        default void acceptAll(String typeAttr, Collection<Map<String, AttributeValue>> items) {
+            for (Map<String, AttributeValue> item : items) {
+                AttributeValue type = item.get(typeAttr);
+                if (Objects.nonNull(type) && Objects.nonNull(type.s())) {
+                    accept(type.s(), item);
+                }
+            }
+        }
+
+        /**
+         * Creates the root and sets every relation which received items.
+         */
+        T build();
+    }
+}
@@ -0,0 +1,159 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Finds generated AggregateMappers and holds the helpers generated mappers call into. A mapper for
+ * the class a.b.Outer$Inner is generated as a.b.Outer_Inner_SquilliamMapper.
+ */
+public class AggregateMappers {
+    public static final String MAPPER_SUFFIX = "_SquilliamMapper";
+
+    private static final ConcurrentMap<Class<?>, Optional<AggregateMapper<?>>> MAPPERS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Gets the generated mapper for the model class, if one was generated. Lookups are cached so
+     * the class loader is only asked once per model.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Optional<AggregateMapper<T>> find(Class<T> model) {
+        return MAPPERS.computeIfAbsent(model, AggregateMappers::load)
+                .map(mapper -> (AggregateMapper<T>) mapper);
+    }
+
+    /**
+     * Gets the name of the mapper class generated for the model class.
+     */
+    public static String mapperName(Class<?> model) {
+        return model.getName().replace('$', '_') + MAPPER_SUFFIX;
+    }
+
+    private static Optional<AggregateMapper<?>> load(Class<?> model) {
+        try {
+            Class<?> mapperClass = Class.forName(mapperName(model), true, model.getClassLoader());
+            AggregateMapper<?> mapper =
+                    (AggregateMapper<?>) mapperClass.getDeclaredConstructor().newInstance();
+            return Optional.of(mapper);
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new ModelException("Unable to load generated mapper", model, e);
+        }
+    }
+
+    /**
+     * Creates the instance of an item (of the root or of a singular relation), or keeps the one
+     * already created: a singular relation takes the first item of its type.
+     */
+    public static <T> T one(T instance, Map<String, AttributeValue> item, Class<T> model) {
+        return Objects.nonNull(instance)
+                ? instance
+                : SchemaRegistry.global().schema(model).mapToItem(item);
+    }
+
+    /**
+     * Adds the instance of an item to the members of a many relation, creating the list for the
+     * first one.
+     */
+    public static <T> List<T> many(List<T> members, Map<String, AttributeValue> item,
+                                   Class<T> model) {
+        List<T> values = Objects.isNull(members) ? new ArrayList<>() : members;
+        values.add(SchemaRegistry.global().schema(model).mapToItem(item));
+        return values;
+    }
+
+    /**
+     * Adds an item of a lazy many relation as it is, it's only converted when read.
+     */
+    public static List<Map<String, AttributeValue>> lazy(List<Map<String, AttributeValue>> items,
+                                                         Map<String, AttributeValue> item) {
+        List<Map<String, AttributeValue>> values = Objects.isNull(items)
+                ? new ArrayList<>()
+                : items;
+        values.add(item);
+        return values;
+    }
+
+    /**
+     * Creates the members of a lazy many relation from its items, see LazyList.
+     */
+    public static <T> List<T> lazy(List<Map<String, AttributeValue>> items, Class<T> model) {
+        return PartitionTransformer.lazyInstances(items, model);
+    }
+
+    /**
+     * Checks the root built from the items of the given type. A DynamoDB root has to declare its
+     * item type, and its partition has to hold exactly one item of it.
+     */
+    public static <T> T root(T root, int rootItems, String itemType, Class<T> model) {
+        if (Objects.isNull(itemType)) {
+            throw new ModelException("No item type identifier", model);
+        }
+        if (rootItems != 1) {
+            throw new PartitionException("Missing required root item");
+        }
+        return root;
+    }
+
+    /**
+     * Chains the items of the parts of a root, each part only being started once the previous
+     * one is exhausted.
+     */
+    @SafeVarargs
+    public static Iterator<Map<String, AttributeValue>> concat(
+            Supplier<Iterator<Map<String, AttributeValue>>>... parts) {
+        return new ConcatIterator<>(Arrays.asList(parts).iterator());
+    }
+
+    /**
+     * The Dynamo items for the members of a many relation, if it is set, serialized as they are
+     * pulled.
+     */
+    public static <T> Iterator<Map<String, AttributeValue>> items(Collection<? extends T> members,
+                                                                 Class<T> model) {
+        if (Objects.isNull(members)) {
+            return Collections.emptyIterator();
+        }
+        if (members instanceof LazyList<?> lazy) {
+            return lazy.items().iterator();
+        }
+        TableSchema<T> schema = SchemaRegistry.global().schema(model);
+        Iterator<? extends T> iterator = members.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map<String, AttributeValue> next() {
+                return schema.itemToMap(iterator.next(), false);
+            }
+        };
+    }
+
+    /**
+     * The Dynamo item for a singular relation (or the root), if it is set.
+     */
+    public static <T> Iterator<Map<String, AttributeValue>> item(T member, Class<T> model) {
+        if (Objects.isNull(member)) {
+            return Collections.emptyIterator();
+        }
+        return List.of(SchemaRegistry.global().schema(model).itemToMap(member, false)).iterator();
+    }
+}
@@ -0,0 +1,56 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What changed in an aggregate since its snapshot: the items which are new, the items which were
+ * modified, the keys of the items to delete, and the snapshot the aggregate has once those writes
+ * are applied.
+ */
+public class ChangeSet {
+    private final List<Map<String, AttributeValue>> added;
+    private final List<ItemUpdate> updates;
+    private final List<Map<String, AttributeValue>> removed;
+    private final Snapshot snapshot;
+
+    public ChangeSet(List<Map<String, AttributeValue>> added, List<ItemUpdate> updates,
+                     List<Map<String, AttributeValue>> removed, Snapshot snapshot) {
+        this.added = added;
+        this.updates = updates;
+        this.removed = removed;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Every item which needs to be put to bring Dynamo up to date, new or modified.
+     */
+    public List<Map<String, AttributeValue>> getChanged() {
+        List<Map<String, AttributeValue>> changed = new ArrayList<>(added);
+        updates.forEach(update -> changed.add(update.getItem()));
+        return changed;
+    }
+
+    public List<Map<String, AttributeValue>> getAdded() {
+        return added;
+    }
+
+    public List<ItemUpdate> getUpdates() {
+        return updates;
+    }
+
+    public List<Map<String, AttributeValue>> getRemoved() {
+        return removed;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updates.isEmpty() && removed.isEmpty();
+    }
+}
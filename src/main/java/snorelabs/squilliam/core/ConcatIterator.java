@@ -0,0 +1,37 @@
+package snorelabs.squilliam.core;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Chains iterators which are only created once the previous one is exhausted. Streams can't do
+ * this for us: the iterator of a stream is fed by pushing elements into a buffer, and flatMap
+ * pushes the whole of an inner stream at once (JDK 10 made flatMap stop early for short-circuiting
+ * terminal operations, iterating it through Stream.iterator still buffers as of JDK 17).
+ */
+class ConcatIterator<T> implements Iterator<T> {
+    private final Iterator<Supplier<Iterator<T>>> parts;
+    private Iterator<T> current = Collections.emptyIterator();
+
+    ConcatIterator(Iterator<Supplier<Iterator<T>>> parts) {
+        this.parts = parts;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext() && parts.hasNext()) {
+            current = parts.next().get();
+        }
+        return current.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+}
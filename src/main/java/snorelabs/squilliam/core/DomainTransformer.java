@@ -3,17 +3,17 @@ package snorelabs.squilliam.core;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
 import static snorelabs.squilliam.core.Predicates.isInDynamo;
-import static snorelabs.squilliam.core.Shenanigans.getMembers;
-import static snorelabs.squilliam.core.Shenanigans.relationFields;
-import static snorelabs.squilliam.core.TargetDescriber.fieldClass;
 
 public class DomainTransformer {
     /**
@@ -39,46 +39,100 @@ public class DomainTransformer {
      * return items
      * ============================================================================================
      * This means a non dynamo item with no relationships would return an empty list (and that
-     * should be okay).
+     * should be okay). Related items are followed by the items of their own relations, with the
+     * declared parent key (if any) set to the sort key of the item they belong to.
      */
     public static List<Map<String, AttributeValue>> transform(Object root) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        iterator(root).forEachRemaining(items::add);
+        return items;
+    }
+
+    /**
+     * Lazily transforms an object into Dynamo items, in the same order as transform. Nothing is
+     * converted until it is asked for, so a caller which consumes items as it goes (e.g. to fill
+     * write batches) only ever holds the items it hasn't dealt with yet.
+     */
+    public static Iterator<Map<String, AttributeValue>> iterator(Object root) {
         if (root instanceof List<?>) {
-            return transformList((List<?>) root);
+            return listItems((List<?>) root).iterator();
         }
-        Stream<Map<String, AttributeValue>> members = relationFields(root.getClass())
-                .flatMap(field -> items(root, field));
-        return Stream.concat(members, rootMap(root)).collect(Collectors.toList());
+        TransformTarget<?> target = TargetDescriber.describe(root.getClass());
+        List<Supplier<Iterator<Map<String, AttributeValue>>>> parts = new ArrayList<>();
+        for (Relation relation : target.getRelations().values()) {
+            parts.add(() -> items(root, relation).iterator());
+        }
+        parts.add(() -> rootMap(target, root).iterator());
+        return new ConcatIterator<>(parts.iterator());
     }
 
     /**
-     * Transforms a list of some application class into a list of dynamo items.
+     * Transforms a list of some application class into a stream of dynamo items.
      */
-    protected static List<Map<String, AttributeValue>> transformList(List<?> items) {
+    private static Stream<Map<String, AttributeValue>> listItems(List<?> items) {
         // Because of type erasure, we can't really get the class of the generic for the provided
-        // list. Unfortunately, that means we need to create a schema per entry.
+        // list. Unfortunately, that means we need to look up a schema per entry (the registry
+        // keeps that to a map lookup).
         return items.stream()
                 .filter(item -> isInDynamo(item.getClass()))
-                .map(item -> dynamoItem(tableSchema(item.getClass()), item))
-                .collect(Collectors.toList());
+                .map(item -> dynamoItem(tableSchema(item.getClass()), item));
     }
 
     /**
      * Gets a stream of the root item if it should be a DynamoDB represented item, otherwise an
      * empty stream
      */
-    protected static <T> Stream<Map<String, AttributeValue>> rootMap(T root) {
-        if (isInDynamo(root.getClass())) {
+    protected static <T> Stream<Map<String, AttributeValue>> rootMap(TransformTarget<?> target,
+                                                                     T root) {
+        if (target.isInDynamo()) {
             return Stream.of(dynamoItem(tableSchema(root.getClass()), root));
         }
         return Stream.empty();
     }
 
     /**
-     * The field class and the class of the items in the stream should be of the same type.
+     * The relation model and the class of the items in the stream should be of the same type.
+     */
+    protected static Stream<Map<String, AttributeValue>> items(Object root, Relation relation) {
+        return items(root, relation, null);
+    }
+
+    /**
+     * Items of the members of the relation, each followed by the items of its own relations.
+     */
+    private static Stream<Map<String, AttributeValue>> items(Object owner, Relation relation,
+                                                             AttributeValue ownerSortKey) {
+        TableSchema<?> schema = tableSchema(relation.getModel());
+        if (relation.get(owner) instanceof LazyList<?> lazy) {
+            // Members which were never read are written as they were loaded
+            return lazy.items().map(item -> linked(item, relation, ownerSortKey));
+        }
+        if (relation.getRelations().isEmpty()) {
+            return relation.members(owner)
+                    .map(member -> linked(dynamoItem(schema, member), relation, ownerSortKey));
+        }
+        String sortKey = schema.tableMetadata().primarySortKey().orElse(null);
+        return relation.members(owner).flatMap(member -> {
+            Map<String, AttributeValue> item =
+                    linked(dynamoItem(schema, member), relation, ownerSortKey);
+            AttributeValue memberSortKey = Objects.isNull(sortKey) ? null : item.get(sortKey);
+            return Stream.concat(Stream.of(item), relation.getRelations().values().stream()
+                    .flatMap(nested -> items(member, nested, memberSortKey)));
+        });
+    }
+
+    /**
+     * Sets the parent key of a nested item to the sort key of the member it belongs to.
      */
-    protected static Stream<Map<String, AttributeValue>> items(Object root, Field field) {
-        TableSchema<?> schema = tableSchema(fieldClass(field));
-        return getMembers(root, field).map(item -> dynamoItem(schema, item));
+    private static Map<String, AttributeValue> linked(Map<String, AttributeValue> item,
+                                                      Relation relation,
+                                                      AttributeValue ownerSortKey) {
+        if (Objects.isNull(ownerSortKey) || Objects.isNull(relation.getParentKey())) {
+            return item;
+        }
+        Map<String, AttributeValue> linked = new HashMap<>(item);
+        linked.put(relation.getParentKey(), ownerSortKey);
+        return linked;
     }
 
     /**
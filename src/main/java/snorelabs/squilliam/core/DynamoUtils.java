@@ -1,12 +1,38 @@
 package snorelabs.squilliam.core;
 
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 public class DynamoUtils {
     /**
-     * Creates a TableSchema for the provided model class
+     * Gets the TableSchema for the provided model class from the global schema registry
      */
     protected static <T> TableSchema<T> tableSchema(Class<T> itemClass) {
-        return TableSchema.fromClass(itemClass);
+        return SchemaRegistry.global().schema(itemClass);
+    }
+
+    /**
+     * Converts a key value to an AttributeValue. Keys can only be strings, numbers or binary, an
+     * AttributeValue is passed through as is.
+     */
+    public static AttributeValue attributeValue(Object value) {
+        if (value instanceof AttributeValue attributeValue) {
+            return attributeValue;
+        }
+        if (value instanceof String string) {
+            return AttributeValue.builder().s(string).build();
+        }
+        if (value instanceof Number number) {
+            return AttributeValue.builder().n(number.toString()).build();
+        }
+        if (value instanceof SdkBytes bytes) {
+            return AttributeValue.builder().b(bytes).build();
+        }
+        if (value instanceof byte[] bytes) {
+            return AttributeValue.builder().b(SdkBytes.fromByteArray(bytes)).build();
+        }
+        throw new IllegalArgumentException("Unsupported key value type: "
+                + (value == null ? "null" : value.getClass().getName()));
     }
 }
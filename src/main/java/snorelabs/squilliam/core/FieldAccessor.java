@@ -0,0 +1,67 @@
+package snorelabs.squilliam.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+
+/**
+ * Gets and sets a single field. Accessors are created once per relation field by the
+ * TargetDescriber and are backed by method handles, which the JIT can inline on the load and write
+ * paths. Fields the method handle lookup can't reach fall back to plain reflection.
+ */
+public class FieldAccessor {
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    /**
+     * Creates an accessor backed by method handles adapted to (Object)Object and (Object,Object)V.
+     */
+    public FieldAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+        this.field = field;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Creates a reflective accessor, the field must already be accessible.
+     */
+    public FieldAccessor(Field field) {
+        this(field, null, null);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Object get(Object root) {
+        try {
+            return getter != null ? (Object) getter.invokeExact(root) : field.get(root);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ModelException("Unable to get field", root.getClass(), wrap(e));
+        }
+    }
+
+    public void set(Object root, Object val) {
+        try {
+            if (setter != null) {
+                setter.invokeExact(root, val);
+            } else {
+                field.set(root, val);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ModelException("Unable to assign field", root.getClass(), wrap(e));
+        }
+    }
+
+    /**
+     * Only checked throwables get here, and a Throwable that is neither an Exception nor an Error
+     * is wrapped so the cause can still be kept.
+     */
+    static Exception wrap(Throwable e) {
+        return e instanceof Exception ? (Exception) e : new RuntimeException(e);
+    }
+}
@@ -0,0 +1,112 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 64 bit FNV-1a fingerprints of Dynamo items. Every value is hashed with its type and length so
+ * that e.g. the string "1" and the number 1 don't collide, and maps and sets are hashed in sorted
+ * order since Dynamo doesn't preserve their order.
+ */
+public class Fingerprints {
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    public static long of(Map<String, AttributeValue> item) {
+        return map(OFFSET, item);
+    }
+
+    public static long of(AttributeValue value) {
+        return value(OFFSET, value);
+    }
+
+    private static long map(long hash, Map<String, AttributeValue> map) {
+        hash = number(mix(hash, 'M'), map.size());
+        for (String name : new TreeSet<>(map.keySet())) {
+            hash = value(string(hash, name), map.get(name));
+        }
+        return hash;
+    }
+
+    private static long value(long hash, AttributeValue value) {
+        if (value == null || Boolean.TRUE.equals(value.nul())) {
+            return mix(hash, 'Z');
+        }
+        if (value.s() != null) {
+            return string(mix(hash, 'S'), value.s());
+        }
+        if (value.n() != null) {
+            return string(mix(hash, 'N'), value.n());
+        }
+        if (value.b() != null) {
+            return bytes(mix(hash, 'B'), value.b().asByteArrayUnsafe());
+        }
+        if (value.bool() != null) {
+            return mix(hash, value.bool() ? 'T' : 'F');
+        }
+        if (value.hasSs()) {
+            return strings(mix(hash, 's'), value.ss());
+        }
+        if (value.hasNs()) {
+            return strings(mix(hash, 'n'), value.ns());
+        }
+        if (value.hasBs()) {
+            List<String> encoded = new ArrayList<>();
+            for (SdkBytes bytes : value.bs()) {
+                encoded.add(new String(bytes.asByteArrayUnsafe(), StandardCharsets.ISO_8859_1));
+            }
+            return strings(mix(hash, 'b'), encoded);
+        }
+        if (value.hasM()) {
+            return map(hash, value.m());
+        }
+        if (value.hasL()) {
+            hash = number(mix(hash, 'L'), value.l().size());
+            for (AttributeValue element : value.l()) {
+                hash = value(hash, element);
+            }
+            return hash;
+        }
+        return mix(hash, '?');
+    }
+
+    private static long strings(long hash, List<String> set) {
+        List<String> sorted = new ArrayList<>(set);
+        Collections.sort(sorted);
+        hash = number(hash, sorted.size());
+        for (String member : sorted) {
+            hash = string(hash, member);
+        }
+        return hash;
+    }
+
+    private static long string(long hash, String string) {
+        return bytes(hash, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long bytes(long hash, byte[] bytes) {
+        hash = number(hash, bytes.length);
+        for (byte b : bytes) {
+            hash = mix(hash, b);
+        }
+        return hash;
+    }
+
+    private static long number(long hash, int number) {
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash = mix(hash, number >>> shift);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int b) {
+        return (hash ^ (b & 0xff)) * PRIME;
+    }
+}
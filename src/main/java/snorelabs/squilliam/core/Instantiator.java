@@ -0,0 +1,46 @@
+package snorelabs.squilliam.core;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Creates instances of a class through its default constructor using a method handle resolved
+ * once. Classes without a usable default constructor only fail when an instance is actually
+ * needed, since plenty of roots are only ever written.
+ */
+public class Instantiator<T> {
+    private final Class<T> targetClass;
+    private final MethodHandle constructor;
+    private final Exception failure;
+
+    /**
+     * Creates an instantiator backed by a constructor handle adapted to ()Object.
+     */
+    public Instantiator(Class<T> targetClass, MethodHandle constructor) {
+        this.targetClass = targetClass;
+        this.constructor = constructor;
+        this.failure = null;
+    }
+
+    /**
+     * Creates an instantiator for a class whose constructor couldn't be resolved.
+     */
+    public Instantiator(Class<T> targetClass, Exception failure) {
+        this.targetClass = targetClass;
+        this.constructor = null;
+        this.failure = failure;
+    }
+
+    public T newInstance() {
+        if (constructor == null) {
+            throw new ModelException("Unable to create instance of target", targetClass, failure);
+        }
+        try {
+            return targetClass.cast((Object) constructor.invokeExact());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ModelException("Unable to create instance of target", targetClass,
+                    FieldAccessor.wrap(e));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An item which was already in Dynamo and changed: its key, the whole item as it is now, the
+ * attributes whose values changed and the attributes which are gone.
+ */
+public class ItemUpdate {
+    private final Map<String, AttributeValue> key;
+    private final Map<String, AttributeValue> item;
+    private final Map<String, AttributeValue> set;
+    private final Set<String> remove;
+
+    public ItemUpdate(Map<String, AttributeValue> key, Map<String, AttributeValue> item,
+                      Map<String, AttributeValue> set, Set<String> remove) {
+        this.key = key;
+        this.item = item;
+        this.set = set;
+        this.remove = remove;
+    }
+
+    public Map<String, AttributeValue> getKey() {
+        return key;
+    }
+
+    public Map<String, AttributeValue> getItem() {
+        return item;
+    }
+
+    public Map<String, AttributeValue> getSet() {
+        return set;
+    }
+
+    public Set<String> getRemove() {
+        return remove;
+    }
+}
@@ -0,0 +1,108 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+
+/**
+ * The key condition of a target's partition, derived from the @DynamoDbPartitionKey and
+ * @DynamoDbSortKey of its root model (or of its first relation model, for roots which aren't
+ * items themselves). The expression strings and attribute name maps are compiled once per target
+ * class, only the values change from one request to the next.
+ */
+public class KeyCondition {
+    private static final ClassValue<KeyCondition> CONDITIONS = new ClassValue<>() {
+        @Override
+        protected KeyCondition computeValue(Class<?> targetClass) {
+            return compile(targetClass);
+        }
+    };
+    private static final String PARTITION_EXPRESSION = "#squilliamPk = :squilliamPk";
+    private static final String PREFIX_EXPRESSION =
+            PARTITION_EXPRESSION + " AND begins_with(#squilliamSk, :squilliamSk)";
+
+    private final String partitionKey;
+    private final String sortKey;
+    private final Map<String, String> partitionNames;
+    private final Map<String, String> prefixNames;
+
+    private KeyCondition(String partitionKey, String sortKey) {
+        this.partitionKey = partitionKey;
+        this.sortKey = sortKey;
+        this.partitionNames = Map.of("#squilliamPk", partitionKey);
+        this.prefixNames = Objects.isNull(sortKey)
+                ? null
+                : Map.of("#squilliamPk", partitionKey, "#squilliamSk", sortKey);
+    }
+
+    public static KeyCondition of(Class<?> targetClass) {
+        return CONDITIONS.get(targetClass);
+    }
+
+    private static KeyCondition compile(Class<?> targetClass) {
+        TransformTarget<?> target = TargetDescriber.describe(targetClass);
+        Class<?> keyModel = target.isInDynamo()
+                ? targetClass
+                : target.getRelations().values().stream()
+                        .map(Relation::getModel)
+                        .filter(Predicates::isInDynamo)
+                        .findFirst()
+                        .orElseThrow(() ->
+                                new ModelException("No keyed model in target", targetClass));
+        TableMetadata metadata = tableSchema(keyModel).tableMetadata();
+        return new KeyCondition(metadata.primaryPartitionKey(),
+                metadata.primarySortKey().orElse(null));
+    }
+
+    /**
+     * A request for the whole partition, without its values (see values).
+     */
+    public QueryRequest partition(String tableName) {
+        return QueryRequest.builder()
+                .tableName(tableName)
+                .keyConditionExpression(PARTITION_EXPRESSION)
+                .expressionAttributeNames(partitionNames)
+                .build();
+    }
+
+    /**
+     * A request for the items of the partition whose sort key begins with a prefix, without its
+     * values (see values).
+     */
+    public QueryRequest prefix(String tableName) {
+        if (Objects.isNull(sortKey)) {
+            throw new IllegalArgumentException("No sort key to match a prefix on");
+        }
+        return QueryRequest.builder()
+                .tableName(tableName)
+                .keyConditionExpression(PREFIX_EXPRESSION)
+                .expressionAttributeNames(prefixNames)
+                .build();
+    }
+
+    /**
+     * The expression values for a partition, and a sort key prefix if there is one.
+     */
+    public Map<String, AttributeValue> values(Object partitionValue, String sortKeyPrefix) {
+        AttributeValue partition = DynamoUtils.attributeValue(partitionValue);
+        if (Objects.isNull(sortKeyPrefix)) {
+            return Map.of(":squilliamPk", partition);
+        }
+        return Map.of(":squilliamPk", partition,
+                ":squilliamSk", AttributeValue.builder().s(sortKeyPrefix).build());
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public Optional<String> getSortKey() {
+        return Optional.ofNullable(sortKey);
+    }
+}
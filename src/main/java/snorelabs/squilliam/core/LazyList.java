@@ -0,0 +1,123 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The members of a lazy @HasMany relation. The list holds on to the Dynamo items it was loaded
+ * from and only converts an element the first time it is read, so a relation which is never
+ * looked at costs neither the conversion nor the instances. Converted elements are kept (and
+ * their items dropped), and concurrent readers of an element all get the same instance.
+ * ============================================================================================
+ * get(i):
+ *     if converted[i] is null:
+ *         converted[i] = to_instance(items[i])
+ *         items[i] = null
+ *     return converted[i]
+ * ============================================================================================
+ * Elements which were never read are written from the items they were loaded from, run through
+ * the schema without keeping the instance, so they come out in the same form as read elements
+ * (and eager relations): dirty tracking would otherwise see reading an element as changing it,
+ * since the schema writes nulls and drops attributes the model doesn't map. The list can be
+ * modified like any other, which converts every element first; from then on it is an ordinary
+ * list (and isn't safe to modify from several threads, same as the ArrayList of an eager
+ * relation).
+ */
+public class LazyList<T> extends AbstractList<T> {
+    private final TableSchema<T> schema;
+    private final AtomicReferenceArray<Map<String, AttributeValue>> items;
+    private final AtomicReferenceArray<T> converted;
+    // Set once by the first modification; readers on other threads must then see the list
+    private volatile List<T> modified;
+
+    @SuppressWarnings("unchecked")
+    public LazyList(List<Map<String, AttributeValue>> items, TableSchema<T> schema) {
+        this.schema = schema;
+        this.items = new AtomicReferenceArray<>(items.toArray(Map[]::new));
+        this.converted = new AtomicReferenceArray<>(items.size());
+    }
+
+    @Override
+    public T get(int index) {
+        if (Objects.nonNull(modified)) {
+            return modified.get(index);
+        }
+        T element = converted.get(index);
+        if (Objects.nonNull(element)) {
+            return element;
+        }
+        Map<String, AttributeValue> item = items.get(index);
+        // The item is only dropped once the element is in place, so a reader finding no item
+        // always finds the element
+        if (Objects.nonNull(item) && converted.compareAndSet(index, null, schema.mapToItem(item))) {
+            items.set(index, null);
+        }
+        return converted.get(index);
+    }
+
+    @Override
+    public int size() {
+        return Objects.nonNull(modified) ? modified.size() : converted.length();
+    }
+
+    @Override
+    public T set(int index, T element) {
+        return materialize().set(index, element);
+    }
+
+    @Override
+    public void add(int index, T element) {
+        materialize().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T removed = materialize().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Whether the element has been converted yet.
+     */
+    public boolean isConverted(int index) {
+        return Objects.nonNull(modified) || Objects.nonNull(converted.get(index));
+    }
+
+    /**
+     * The Dynamo items of the elements, in order, as the schema writes them whether or not the
+     * element was read.
+     */
+    public Stream<Map<String, AttributeValue>> items() {
+        if (Objects.nonNull(modified)) {
+            return modified.stream().map(element -> schema.itemToMap(element, false));
+        }
+        return IntStream.range(0, converted.length()).mapToObj(this::item);
+    }
+
+    private Map<String, AttributeValue> item(int index) {
+        Map<String, AttributeValue> item = items.get(index);
+        return schema.itemToMap(Objects.nonNull(item) ? schema.mapToItem(item) : get(index), false);
+    }
+
+    private List<T> materialize() {
+        if (Objects.isNull(modified)) {
+            List<T> elements = new ArrayList<>(converted.length());
+            for (int i = 0; i < converted.length(); i++) {
+                elements.add(get(i));
+            }
+            modified = elements;
+        }
+        return modified;
+    }
+}
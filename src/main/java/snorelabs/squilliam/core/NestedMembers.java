@@ -0,0 +1,143 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+
+/**
+ * Hangs the members of nested relations (relations of related models) on the members they belong
+ * to. Items are converted as they are seen, members which have relations of their own are indexed
+ * by sort key, and once the whole partition has been seen every nested member is linked to its
+ * parent in one pass, so a tree of any depth is built from the single query of the partition.
+ * ============================================================================================
+ * instance(relation, item):
+ *     member = to_instance(item)
+ *     if has_relations(relation):
+ *         parents[relation][sort_key(item)] = member
+ *     if is_nested(relation):
+ *         children[relation].add(member, parent_key(item) or sort_key(item))
+ *     return member
+ * link():
+ *     for relation, members in children:
+ *         for member, key in members:
+ *             candidates = parents[parent(relation)]
+ *             parent = candidates[key] if parent_key(relation) else longest_prefix(candidates, key)
+ *             groups[parent].add(member)
+ *         for parent, group in groups:
+ *             relation.set(parent, group if is_many(relation) else first(group))
+ * ============================================================================================
+ * Nested members whose parent isn't in the partition are dropped, like items of types the target
+ * has no place for.
+ */
+class NestedMembers {
+    private final TransformTarget<?> target;
+    private final Map<Relation, NavigableMap<String, Object>> parents = new IdentityHashMap<>();
+    private final Map<Relation, List<Member>> children = new IdentityHashMap<>();
+
+    NestedMembers(TransformTarget<?> target) {
+        this.target = target;
+    }
+
+    /**
+     * Converts an item of the relation, keeping track of it if it is (or has) nested members.
+     */
+    Object instance(Relation relation, Map<String, AttributeValue> item) {
+        Object member = tableSchema(relation.getModel()).mapToItem(item);
+        if (!relation.getRelations().isEmpty()) {
+            String sortKey = sortKey(relation, item);
+            if (Objects.nonNull(sortKey)) {
+                parents.computeIfAbsent(relation, r -> new TreeMap<>()).put(sortKey, member);
+            }
+        }
+        if (Objects.nonNull(target.getParent(relation))) {
+            String key = Objects.isNull(relation.getParentKey())
+                    ? sortKey(relation, item)
+                    : string(item.get(relation.getParentKey()));
+            children.computeIfAbsent(relation, r -> new ArrayList<>()).add(new Member(member, key));
+        }
+        return member;
+    }
+
+    /**
+     * Sets the nested relations on every member which received items.
+     */
+    void link() {
+        for (Map.Entry<Relation, List<Member>> entry : children.entrySet()) {
+            Relation relation = entry.getKey();
+            NavigableMap<String, Object> candidates = parents.getOrDefault(
+                    target.getParent(relation), Collections.emptyNavigableMap());
+            Map<Object, List<Object>> groups = new IdentityHashMap<>();
+            for (Member member : entry.getValue()) {
+                Object parent = parent(relation, candidates, member.key);
+                if (Objects.nonNull(parent)) {
+                    groups.computeIfAbsent(parent, p -> new ArrayList<>()).add(member.instance);
+                }
+            }
+            groups.forEach((parent, members) ->
+                    relation.set(parent, relation.isMany() ? members : members.get(0)));
+        }
+    }
+
+    /**
+     * Finds the parent by its sort key, or as the longest sort key the member's key begins with.
+     * Prefixes of a key sort right before it, and when a candidate isn't a prefix the next one can
+     * only be a prefix of what the two have in common, so this is a handful of lookups rather
+     * than a walk over the candidates.
+     */
+    static Object parent(Relation relation, NavigableMap<String, Object> candidates, String key) {
+        if (Objects.isNull(key)) {
+            return null;
+        }
+        if (Objects.nonNull(relation.getParentKey())) {
+            return candidates.get(key);
+        }
+        Map.Entry<String, Object> candidate = candidates.lowerEntry(key);
+        while (Objects.nonNull(candidate)) {
+            if (key.startsWith(candidate.getKey())) {
+                return candidate.getValue();
+            }
+            candidate = candidates.floorEntry(commonPrefix(candidate.getKey(), key));
+        }
+        return null;
+    }
+
+    private static String commonPrefix(String a, String b) {
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return a.substring(0, i);
+    }
+
+    private static String sortKey(Relation relation, Map<String, AttributeValue> item) {
+        return tableSchema(relation.getModel()).tableMetadata().primarySortKey()
+                .map(name -> string(item.get(name)))
+                .orElse(null);
+    }
+
+    static String string(AttributeValue value) {
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        return Objects.nonNull(value.s()) ? value.s() : value.n();
+    }
+
+    private static class Member {
+        private final Object instance;
+        private final String key;
+
+        private Member(Object instance, String key) {
+            this.instance = instance;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+
+/**
+ * Builds an instance of a target incrementally, as pages (or single items) arrive. This does the
+ * job of the PartitionAggregator and the PartitionTransformer together: each item is routed by
+ * its type attribute straight to the relation it belongs to and converted right away, so the raw
+ * Dynamo items can be dropped as soon as they're accepted rather than being grouped into a
+ * Partition first.
+ * ============================================================================================
+ * accept(item):
+ *     if type(item) == root_type:
+ *         root = instance(item)
+ *     else if type(item) in lazy_relations:
+ *         lazy[type(item)].add(item)
+ *     else if type(item) in relations:
+ *         members[type(item)].add(instance(item))
+ *     else if type(item) in nested_relations:
+ *         nested.instance(item)
+ * build():
+ *     root = root or default()
+ *     for relation, values in members:
+ *         relation.set(root, values)
+ *     for relation, items in lazy:
+ *         relation.set(root, lazy_list(items))
+ *     nested.link()
+ *     return root
+ * ============================================================================================
+ * As with the PartitionTransformer, relation fields are only set when the partition had data for
+ * them, and items of types the target doesn't know about are ignored. Nested members can arrive
+ * before the members they belong to, so they are only linked once the partition is complete.
+ */
+public class PartitionAccumulator<T> {
+    private final String typeAttr;
+    private final TransformTarget<T> target;
+    private final Map<String, List<Object>> members = new HashMap<>();
+    private final Map<String, List<Map<String, AttributeValue>>> lazy = new HashMap<>();
+    private final NestedMembers nested;
+    private T root;
+    private int rootItems;
+    private long accepted;
+
+    public PartitionAccumulator(String typeAttr, TransformTarget<T> target) {
+        this.typeAttr = typeAttr;
+        this.target = target;
+        this.nested = new NestedMembers(target);
+    }
+
+    /**
+     * Accepts a page of items.
+     */
+    public void acceptAll(Collection<Map<String, AttributeValue>> items) {
+        for (Map<String, AttributeValue> item : items) {
+            accept(item);
+        }
+    }
+
+    /**
+     * Accepts a single item, converting it if the target has a place for it.
+     */
+    public void accept(Map<String, AttributeValue> item) {
+        AttributeValue type = item.get(typeAttr);
+        if (Objects.isNull(type) || Objects.isNull(type.s())) {
+            return;
+        }
+        String itemType = type.s();
+        if (target.isInDynamo() && itemType.equals(target.getItemType())) {
+            rootItems++;
+            root = tableSchema(target.getModel()).mapToItem(item);
+        } else if (target.getRelations().containsKey(itemType)) {
+            accept(target.getRelations().get(itemType), item);
+        } else if (target.getNestedRelations().containsKey(itemType)) {
+            nested.instance(target.getNestedRelations().get(itemType), item);
+        } else {
+            return;
+        }
+        accepted++;
+    }
+
+    private void accept(Relation relation, Map<String, AttributeValue> item) {
+        if (relation.isLazy()) {
+            lazy.computeIfAbsent(relation.getItemType(), itemType -> new ArrayList<>()).add(item);
+            return;
+        }
+        List<Object> values = members.computeIfAbsent(relation.getItemType(),
+                itemType -> new ArrayList<>());
+        // Singular relations take the first item of their type, same as the transformer
+        if (relation.isMany() || values.isEmpty()) {
+            values.add(nested.instance(relation, item));
+        }
+    }
+
+    /**
+     * Number of items accepted into the target so far.
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Whether the items accepted so far are of this target at all: a root item for targets which
+     * are Dynamo items, any item the target has a place for otherwise.
+     */
+    public boolean isOfTarget() {
+        return target.isInDynamo() ? rootItems > 0 : accepted > 0;
+    }
+
+    /**
+     * Creates the root and sets every relation which received items.
+     */
+    public T build() {
+        T instance = rootInstance();
+        for (Map.Entry<String, List<Object>> entry : members.entrySet()) {
+            Relation relation = target.getRelations().get(entry.getKey());
+            relation.set(instance, relation.isMany() ? entry.getValue() : entry.getValue().get(0));
+        }
+        for (Map.Entry<String, List<Map<String, AttributeValue>>> entry : lazy.entrySet()) {
+            Relation relation = target.getRelations().get(entry.getKey());
+            relation.set(instance,
+                    PartitionTransformer.lazyInstances(entry.getValue(), relation.getModel()));
+        }
+        nested.link();
+        return instance;
+    }
+
+    private T rootInstance() {
+        if (!target.isInDynamo()) {
+            return target.newInstance();
+        }
+        PartitionTransformer.rootItemType(target);
+        if (rootItems != 1) {
+            throw new PartitionException("Missing required root item");
+        }
+        return root;
+    }
+}
@@ -4,6 +4,14 @@ public class PartitionException extends RuntimeException {
 
     private Partition partition;
 
+    /**
+     * For failures in partitions which were never materialized, e.g. when accumulated page by
+     * page.
+     */
+    public PartitionException(String msg) {
+        this(msg, null);
+    }
+
     public PartitionException(String msg, Partition partition) {
         super(msg);
         this.partition = partition;
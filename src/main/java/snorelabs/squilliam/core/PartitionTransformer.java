@@ -5,13 +5,12 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
-import static snorelabs.squilliam.core.Predicates.isInDynamo;
 import static snorelabs.squilliam.core.Predicates.isItemType;
-import static snorelabs.squilliam.core.Predicates.isManyAnnotated;
 
 
 public class PartitionTransformer {
@@ -28,10 +27,12 @@ public class PartitionTransformer {
      *     root = default()
      * for member, field in zip(partition, target):
      *     field.set(root, member)
+     * link(nested(partition, target))
      * return root
      *=============================================================================================
      * This presents an interesting caveat, fields will only be set in the case that they have
-     * available data in the retrieved DynamoDB Partition.
+     * available data in the retrieved DynamoDB Partition. Relations of related models are filled
+     * from the same partition, see NestedMembers.
      *
      * @param partition - Partition containing retrieved DynamoDB data.
      * @param target - TransformTarget to aggregate the partition results into.
@@ -39,10 +40,18 @@ public class PartitionTransformer {
      * @param <T> Class of the desired target instance
      */
     public static <T> T transform(Partition partition, TransformTarget<T> target) {
-        T root = rootInstance(partition, target.getModel());
-        for (RootMember member : zip(partition.getAggregates(), target.getRelations())) {
-            Shenanigans.setMember(root, member.getField(), member.getVal());
+        T root = rootInstance(partition, target);
+        NestedMembers nested = new NestedMembers(target);
+        for (RootMember member : zip(partition.getAggregates(), target.getRelations(), nested)) {
+            member.getRelation().set(root, member.getVal());
         }
+        for (DynamoAggregate aggregate : partition.getAggregates()) {
+            Relation relation = target.getNestedRelations().get(aggregate.getItemType());
+            if (Objects.nonNull(relation)) {
+                aggregate.getDynamoItems().forEach(item -> nested.instance(relation, item));
+            }
+        }
+        nested.link();
         return root;
     }
 
@@ -58,22 +67,32 @@ public class PartitionTransformer {
      * Creates an instance of the target, either using a record from the partition or the default
      * constructor of the class.
      */
-    private static <T> T rootInstance(Partition partition, Class<T> targetClass) {
-        return isInDynamo(targetClass)
-                ? instanceFromPartition(partition, targetClass)
-                : Shenanigans.defaultInstance(targetClass);
+    private static <T> T rootInstance(Partition partition, TransformTarget<T> target) {
+        return target.isInDynamo()
+                ? instanceFromPartition(partition, target)
+                : target.newInstance();
     }
 
     /**
      * Creates instance using item type from partition.
      */
-    private static <T> T instanceFromPartition(Partition partition, Class<T> targetClass) {
-        return find(partition.getAggregates(), Shenanigans.dynamoItemType(targetClass))
+    private static <T> T instanceFromPartition(Partition partition, TransformTarget<T> target) {
+        return find(partition.getAggregates(), rootItemType(target))
                 .filter(Predicates::isSingular)
-                .map(agg -> instance(agg.getDynamoItems().get(0), targetClass))
+                .map(agg -> instance(agg.getDynamoItems().get(0), target.getModel()))
                 .orElseThrow(() -> new PartitionException("Missing required root item", partition));
     }
 
+    /**
+     * Gets the item type of a root which is a DynamoDB item, which it is required to declare.
+     */
+    protected static String rootItemType(TransformTarget<?> target) {
+        if (target.getItemType() == null) {
+            throw new ModelException("No item type identifier", target.getModel());
+        }
+        return target.getItemType();
+    }
+
     /**
      * Finds a DynamoAggregate of the matching item type.
      */
@@ -87,10 +106,11 @@ public class PartitionTransformer {
      * Merges the dynamo aggregates from a partition with the relations defined by the target class
      */
     private static List<RootMember> zip(List<DynamoAggregate> aggregates,
-                                        Map<String, Relation> relations) {
+                                        Map<String, Relation> relations, NestedMembers nested) {
         return aggregates.stream()
                 .filter(aggregate -> relations.containsKey(aggregate.getItemType()))
-                .map(agg -> rootMember(agg.getDynamoItems(), relations.get(agg.getItemType())))
+                .map(agg -> rootMember(agg.getDynamoItems(), relations.get(agg.getItemType()),
+                        nested))
                 .collect(Collectors.toList());
     }
 
@@ -99,10 +119,23 @@ public class PartitionTransformer {
      * will check the determination and create a single instance or array.
      */
     private static RootMember rootMember(List<Map<String, AttributeValue>> items,
-                                         Relation relation) {
-        return isManyAnnotated(relation.getField())
-                ? new RootMember(relation.getField(), instances(items, relation.getModel()))
-                : new RootMember(relation.getField(), instance(items.get(0), relation.getModel()));
+                                         Relation relation, NestedMembers nested) {
+        if (relation.isLazy()) {
+            return new RootMember(relation, lazyInstances(items, relation.getModel()));
+        }
+        return relation.isMany()
+                ? new RootMember(relation, items.stream()
+                        .map(item -> nested.instance(relation, item))
+                        .collect(Collectors.toList()))
+                : new RootMember(relation, nested.instance(relation, items.get(0)));
+    }
+
+    /**
+     * Creates a list of the target model which only converts the items as they are read.
+     */
+    public static <T> LazyList<T> lazyInstances(List<Map<String, AttributeValue>> vals,
+                                                Class<T> model) {
+        return new LazyList<>(vals, tableSchema(model));
     }
 
     /**
@@ -10,7 +10,15 @@ import java.lang.reflect.Field;
 
 public class Predicates {
     public static boolean isRelationship(Field field) {
-        return isManyAnnotated(field) || isOneAnnotated(field);
+        return isManyAnnotated(field) || (isOneAnnotated(field) && !isReference(field));
+    }
+
+    /**
+     * Whether the field is a @HasOne resolved by key rather than found in the partition.
+     */
+    public static boolean isReference(Field field) {
+        return isOneAnnotated(field)
+                && !field.getAnnotation(HasOne.class).partitionKeyRef().isEmpty();
     }
 
     public static boolean isSingular(DynamoAggregate aggregate) {
@@ -0,0 +1,135 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+import static snorelabs.squilliam.core.Predicates.isInDynamo;
+
+/**
+ * The attributes a target actually maps: every attribute of the root model and of each relation
+ * model, plus the item type attribute the partition is split on. Loading only those leaves out
+ * whatever else lives on the items (audit blobs and the like), which saves read bytes, capacity
+ * and deserialization. Projections are compiled once per target and item type attribute, so
+ * applying one to a request is just a couple of map copies.
+ */
+public class Projection {
+    private static final ClassValue<ConcurrentMap<String, Projection>> PROJECTIONS =
+            new ClassValue<>() {
+                @Override
+                protected ConcurrentMap<String, Projection> computeValue(Class<?> targetClass) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final Set<String> attributes;
+    private final String expression;
+    private final Map<String, String> names;
+
+    private Projection(Set<String> attributes) {
+        this.attributes = Collections.unmodifiableSet(attributes);
+        Map<String, String> names = new HashMap<>();
+        List<String> placeholders = new ArrayList<>();
+        for (String attribute : attributes) {
+            String placeholder = "#squilliamAttr" + names.size();
+            names.put(placeholder, attribute);
+            placeholders.add(placeholder);
+        }
+        this.expression = String.join(", ", placeholders);
+        this.names = Collections.unmodifiableMap(names);
+    }
+
+    /**
+     * Gets the projection for the target class, compiling it the first time it is asked for.
+     */
+    public static Projection of(Class<?> targetClass, String itemAttrName) {
+        return PROJECTIONS.get(targetClass)
+                .computeIfAbsent(Objects.requireNonNullElse(itemAttrName, ""),
+                        name -> compile(targetClass, itemAttrName));
+    }
+
+    private static Projection compile(Class<?> targetClass, String itemAttrName) {
+        TransformTarget<?> target = TargetDescriber.describe(targetClass);
+        Set<String> attributes = new LinkedHashSet<>();
+        if (Objects.nonNull(itemAttrName)) {
+            attributes.add(itemAttrName);
+        }
+        addAttributes(attributes, target.getModel());
+        for (Relation relation : target.getAllRelations()) {
+            addAttributes(attributes, relation.getModel());
+            if (Objects.nonNull(relation.getParentKey())) {
+                attributes.add(relation.getParentKey());
+            }
+        }
+        return new Projection(attributes);
+    }
+
+    private static void addAttributes(Set<String> attributes, Class<?> model) {
+        if (isInDynamo(model)) {
+            attributes.addAll(tableSchema(model).attributeNames());
+        }
+    }
+
+    /**
+     * Adds the projection to the request, unless the caller already chose what to read (with a
+     * projection of their own or a select) or there is nothing to project.
+     */
+    public QueryRequest apply(QueryRequest request) {
+        if (attributes.isEmpty()
+                || Objects.nonNull(request.projectionExpression())
+                || Objects.nonNull(request.select())) {
+            return request;
+        }
+        Map<String, String> requestNames = new HashMap<>(names);
+        if (request.hasExpressionAttributeNames()
+                && Objects.nonNull(request.expressionAttributeNames())) {
+            requestNames.putAll(request.expressionAttributeNames());
+        }
+        return request.toBuilder()
+                .projectionExpression(expression)
+                .expressionAttributeNames(requestNames)
+                .select(Select.SPECIFIC_ATTRIBUTES)
+                .build();
+    }
+
+    /**
+     * Adds the projection to a scan, as for a query.
+     */
+    public ScanRequest apply(ScanRequest request) {
+        if (attributes.isEmpty()
+                || Objects.nonNull(request.projectionExpression())
+                || Objects.nonNull(request.select())) {
+            return request;
+        }
+        Map<String, String> requestNames = new HashMap<>(names);
+        if (request.hasExpressionAttributeNames()
+                && Objects.nonNull(request.expressionAttributeNames())) {
+            requestNames.putAll(request.expressionAttributeNames());
+        }
+        return request.toBuilder()
+                .projectionExpression(expression)
+                .expressionAttributeNames(requestNames)
+                .select(Select.SPECIFIC_ATTRIBUTES)
+                .build();
+    }
+
+    public Set<String> getAttributes() {
+        return attributes;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+}
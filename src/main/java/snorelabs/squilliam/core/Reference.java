@@ -0,0 +1,107 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+
+/**
+ * A compiled @HasOne field whose related item lives outside the partition and is found by the
+ * key the owning item stores in its reference attributes. See HasOne.
+ */
+public class Reference {
+    private final Class<?> model;
+    private final FieldAccessor accessor;
+    private final String partitionKeyRef;
+    private final String sortKeyRef;
+    private final String table;
+
+    public Reference(Class<?> model, FieldAccessor accessor, String partitionKeyRef,
+                     String sortKeyRef, String table) {
+        this.model = model;
+        this.accessor = accessor;
+        this.partitionKeyRef = partitionKeyRef;
+        this.sortKeyRef = sortKeyRef;
+        this.table = table;
+    }
+
+    public Field getField() {
+        return accessor.getField();
+    }
+
+    public Class<?> getModel() {
+        return model;
+    }
+
+    /**
+     * Table the related item lives in, or null for the table the owner was loaded from.
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the primary key of the item the owner refers to, named after the keys of the related
+     * model. Owners which don't refer to anything (a null reference attribute) have an empty key.
+     */
+    public Map<String, AttributeValue> key(Object owner) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        TableMetadata metadata = tableSchema(model).tableMetadata();
+        AttributeValue partitionValue = referenced(owner, partitionKeyRef);
+        if (Objects.isNull(partitionValue)) {
+            return key;
+        }
+        key.put(metadata.primaryPartitionKey(), partitionValue);
+        if (metadata.primarySortKey().isPresent()) {
+            AttributeValue sortValue = referenced(owner, sortKeyRef);
+            if (Objects.isNull(sortValue)) {
+                return new HashMap<>();
+            }
+            key.put(metadata.primarySortKey().get(), sortValue);
+        }
+        return key;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AttributeValue referenced(Object owner, String attribute) {
+        if (Objects.isNull(attribute)) {
+            return null;
+        }
+        TableSchema schema = tableSchema(owner.getClass());
+        AttributeValue value = schema.attributeValue(owner, attribute);
+        return Objects.isNull(value) || Boolean.TRUE.equals(value.nul()) ? null : value;
+    }
+
+    /**
+     * Gets the related item of the owner in its Dynamo form, or null when it isn't set.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Map<String, AttributeValue> item(Object owner) {
+        Object related = accessor.get(owner);
+        if (Objects.isNull(related)) {
+            return null;
+        }
+        TableSchema schema = tableSchema(model);
+        return schema.itemToMap(related, true);
+    }
+
+    /**
+     * Moves the related item of one owner onto another, instance and all.
+     */
+    public void move(Object from, Object to) {
+        accessor.set(to, accessor.get(from));
+    }
+
+    /**
+     * Sets the related item, as retrieved from Dynamo, on the owner.
+     */
+    public void set(Object owner, Map<String, AttributeValue> item) {
+        accessor.set(owner, tableSchema(model).mapToItem(item));
+    }
+}
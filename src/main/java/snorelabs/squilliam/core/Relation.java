@@ -1,21 +1,114 @@
 package snorelabs.squilliam.core;
 
 import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
+/**
+ * A compiled relation field of a target. Everything the transformers need to know about the
+ * relation is resolved once when the target is described, so transforms don't reflect on it.
+ */
 public class Relation {
-    private Class<?> model;
-    private Field field;
+    private final Class<?> model;
+    private final FieldAccessor accessor;
+    private final String itemType;
+    private final boolean many;
+    private final String sortKeyPrefix;
+    private final Map<String, Relation> relations;
+    private final String parentKey;
+    private final boolean lazy;
 
-    public Relation(Class<?> model, Field field) {
+    public Relation(Class<?> model, FieldAccessor accessor, String itemType, boolean many,
+                    String sortKeyPrefix) {
+        this(model, accessor, itemType, many, sortKeyPrefix, Map.of(), null, false);
+    }
+
+    public Relation(Class<?> model, FieldAccessor accessor, String itemType, boolean many,
+                    String sortKeyPrefix, Map<String, Relation> relations, String parentKey,
+                    boolean lazy) {
         this.model = model;
-        this.field = field;
+        this.accessor = accessor;
+        this.itemType = itemType;
+        this.many = many;
+        this.sortKeyPrefix = sortKeyPrefix;
+        this.relations = Collections.unmodifiableMap(relations);
+        this.parentKey = parentKey;
+        this.lazy = lazy;
     }
 
     public Field getField() {
-        return field;
+        return accessor.getField();
     }
 
     public Class<?> getModel() {
         return model;
     }
+
+    public String getItemType() {
+        return itemType;
+    }
+
+    public boolean isMany() {
+        return many;
+    }
+
+    /**
+     * What the sort keys of the relation's items begin with, see ItemType.
+     */
+    public String getSortKeyPrefix() {
+        return sortKeyPrefix;
+    }
+
+    /**
+     * Relations of the related model itself, keyed by item type, whose items live in the same
+     * partition and are hung on the members of this relation.
+     */
+    public Map<String, Relation> getRelations() {
+        return relations;
+    }
+
+    /**
+     * Attribute of the relation's items holding the sort key of the member of the enclosing
+     * relation they belong to, or null when they are linked by sort key prefix. Only used for
+     * nested relations.
+     */
+    public String getParentKey() {
+        return parentKey;
+    }
+
+    /**
+     * Whether the members are set as a LazyList of the items they were loaded from.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Gets the value of the relation on the provided root, which may be null.
+     */
+    public Object get(Object root) {
+        return accessor.get(root);
+    }
+
+    /**
+     * Sets the value of the relation on the provided root.
+     */
+    public void set(Object root, Object val) {
+        accessor.set(root, val);
+    }
+
+    /**
+     * Gets the members of the relation on the provided root as a stream, regardless of whether the
+     * relation is singular or a collection. Unset relations have no members.
+     */
+    public Stream<?> members(Object root) {
+        Object val = accessor.get(root);
+        if (Objects.isNull(val)) {
+            return Stream.empty();
+        }
+        return many ? ((List<?>) val).stream() : Stream.of(val);
+    }
 }
@@ -1,18 +1,16 @@
 package snorelabs.squilliam.core;
 
-import java.lang.reflect.Field;
-
 public class RootMember {
-    private Field field;
+    private Relation relation;
     private Object val;
 
-    public RootMember(Field field, Object val) {
-        this.field = field;
+    public RootMember(Relation relation, Object val) {
+        this.relation = relation;
         this.val = val;
     }
 
-    public Field getField() {
-        return field;
+    public Relation getRelation() {
+        return relation;
     }
 
     public Object getVal() {
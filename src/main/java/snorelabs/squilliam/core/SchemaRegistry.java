@@ -0,0 +1,101 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches TableSchemas by model class. Creating a schema means introspecting the whole bean, which
+ * is by far the most expensive part of a transform, so every schema lookup in Squilliam goes
+ * through a registry and a warm process only ever introspects a model once. The registry is
+ * bounded so that class loader churn (hot reloading, generated classes) can't grow it forever.
+ */
+public class SchemaRegistry {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final SchemaRegistry GLOBAL = new SchemaRegistry(DEFAULT_CAPACITY);
+
+    private final ConcurrentMap<Class<?>, TableSchema<?>> schemas = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SchemaRegistry(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Schema registry capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * The process wide registry used by the transformers and the client.
+     */
+    public static SchemaRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Gets the schema for the provided model class, introspecting the class only if it hasn't
+     * been seen before.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> TableSchema<T> schema(Class<T> model) {
+        TableSchema<?> schema = schemas.get(model);
+        if (schema != null) {
+            hits.increment();
+            return (TableSchema<T>) schema;
+        }
+        evictIfFull();
+        return (TableSchema<T>) schemas.computeIfAbsent(model, this::introspect);
+    }
+
+    /**
+     * Eagerly introspects the provided models, typically at startup so that the first requests
+     * don't pay for it.
+     */
+    public void register(Class<?>... models) {
+        for (Class<?> model : models) {
+            schema(model);
+        }
+    }
+
+    /**
+     * Registers an explicitly built schema (e.g. a static or immutable schema) for the model.
+     */
+    public <T> void register(Class<T> model, TableSchema<T> schema) {
+        evictIfFull();
+        schemas.put(model, schema);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return schemas.size();
+    }
+
+    private TableSchema<?> introspect(Class<?> model) {
+        misses.increment();
+        return TableSchema.fromClass(model);
+    }
+
+    /**
+     * Models are a small, fixed set in practice so the eviction choice doesn't matter much, we
+     * just need to make room.
+     */
+    private void evictIfFull() {
+        Iterator<Class<?>> models = schemas.keySet().iterator();
+        while (schemas.size() >= capacity && models.hasNext()) {
+            models.next();
+            models.remove();
+        }
+    }
+}
@@ -2,15 +2,15 @@ package snorelabs.squilliam.core;
 
 import snorelabs.squilliam.core.annotations.ItemType;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
-import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Stream;
 
-import static snorelabs.squilliam.core.Predicates.isManyAnnotated;
-
 /**
  * Once in a while, given the right circumstances and a language that doesn't let you just do what
  * you want to do... You need to introduce some shenanigans. Shenanigans are things that would make
@@ -23,45 +23,54 @@ import static snorelabs.squilliam.core.Predicates.isManyAnnotated;
  */
 public class Shenanigans {
     /**
-     * This is a side effect method which reflectively sets the value onto the field of the
-     * provided root instance. Although unfortunate, Java doesn't natively support creating new
-     * instances with the additional field set without the client implementing a builder for it.
-     * Supporting immutables is on the radar but not currently handled.
+     * Creates an accessor for the field. Although unfortunate, Java doesn't natively support
+     * creating new instances with the additional field set without the client implementing a
+     * builder for it, so relation fields get set from the outside. Supporting immutables is on the
+     * radar but not currently handled. We resolve method handles through a private lookup in the
+     * model's class, and if the model's module doesn't let us in we make do with reflection.
      */
-    protected static <T> void setMember(T root, Field field, Object val) {
+    protected static FieldAccessor accessor(Field field) {
         try {
-            field.setAccessible(true);
-            field.set(root, val);
-        } catch (IllegalAccessException e) {
-            throw new ModelException("Unable to assign field", root.getClass(), e);
+            MethodHandles.Lookup lookup = privateLookup(field.getDeclaringClass());
+            MethodHandle getter = lookup.unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            MethodHandle setter = lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return new FieldAccessor(field, getter, setter);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return reflectiveAccessor(field);
         }
     }
 
-    protected static Stream<?> getMembers(Object root, Field field) {
+    /**
+     * Creates an instantiator using the default constructor of the target class.
+     */
+    protected static <T> Instantiator<T> instantiator(Class<T> targetClass) {
         try {
-            field.setAccessible(true);
-            return isManyAnnotated(field)
-                    ? ((List<?>)field.get(root)).stream()
-                    : Stream.of(field.get(root));
-        } catch (IllegalAccessException e) {
-            throw new ModelException("Unable to get field", root.getClass(), e);
+            MethodHandle constructor = privateLookup(targetClass)
+                    .findConstructor(targetClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            return new Instantiator<>(targetClass, constructor);
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException e) {
+            return new Instantiator<>(targetClass, e);
         }
     }
 
-    /**
-     * Creates an instance of the target class using the default constructor.
-     */
-    protected static <T> T defaultInstance(Class<T> targetClass) {
+    private static FieldAccessor reflectiveAccessor(Field field) {
         try {
-            return targetClass.getDeclaredConstructor().newInstance();
-        } catch (InvocationTargetException
-                 | InstantiationException
-                 | IllegalAccessException
-                 | NoSuchMethodException e) {
-            throw new ModelException("Unable to create instance of target", targetClass, e);
+            field.setAccessible(true);
+            return new FieldAccessor(field);
+        } catch (RuntimeException e) {
+            throw new ModelException("Unable to access field " + field.getName(),
+                    field.getDeclaringClass(), e);
         }
     }
 
+    private static MethodHandles.Lookup privateLookup(Class<?> targetClass)
+            throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(targetClass, MethodHandles.lookup());
+    }
+
     /**
      * Gets all relation fields. Relation fields are fields on the target which come from other
      * records in Dynamo, marked on the model by the appropriate relation annotation
@@ -70,6 +79,13 @@ public class Shenanigans {
         return allFields(targetClass).filter(Predicates::isRelationship);
     }
 
+    /**
+     * Gets all reference fields, @HasOne fields whose item is found by key. See HasOne.
+     */
+    protected static Stream<Field> referenceFields(Class<?> targetClass) {
+        return allFields(targetClass).filter(Predicates::isReference);
+    }
+
     /**
      * Gets all declared fields of the target class and follows up the inheritance chain to get
      * all fields of every base class.
@@ -88,11 +104,32 @@ public class Shenanigans {
      * Gets the item type string (used to identify what type of item the dynamo record is)
      */
     protected static String dynamoItemType(Class<?> item) {
+        return findItemType(item)
+                .orElseThrow(() -> new ModelException("No item type identifier", item));
+    }
+
+    /**
+     * Gets the item type string if the class declares one.
+     */
+    protected static Optional<String> findItemType(Class<?> item) {
         return allFields(item)
                 .filter(Predicates::isItemIdentifier)
                 .findFirst()
-                .map(itemField -> itemField.getAnnotation(ItemType.class).value())
-                .orElseThrow(() -> new ModelException("No item type identifier", item));
+                .map(itemField -> itemField.getAnnotation(ItemType.class).value());
+    }
+
+    /**
+     * Gets the sort key prefix of the item type if the class declares one, the item type itself
+     * if it doesn't declare a prefix.
+     */
+    protected static Optional<String> findSortKeyPrefix(Class<?> item) {
+        return allFields(item)
+                .filter(Predicates::isItemIdentifier)
+                .findFirst()
+                .map(itemField -> itemField.getAnnotation(ItemType.class))
+                .map(itemType -> itemType.sortKeyPrefix().isEmpty()
+                        ? itemType.value()
+                        : itemType.sortKeyPrefix());
     }
 
     /**
@@ -0,0 +1,162 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+import static snorelabs.squilliam.core.Predicates.isInDynamo;
+
+/**
+ * The fingerprints of every item of an aggregate as it was loaded (or last saved), keyed by the
+ * item's primary key. Only fingerprints are kept, never the items themselves: one for the whole
+ * item to tell whether it changed, and one per attribute to tell what changed.
+ */
+public class Snapshot {
+    private final Set<String> keyNames;
+    private final Map<Map<String, AttributeValue>, ItemPrint> fingerprints;
+
+    private Snapshot(Set<String> keyNames,
+                     Map<Map<String, AttributeValue>, ItemPrint> fingerprints) {
+        this.keyNames = keyNames;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Fingerprints the items of the root, which should be its current Dynamo representation.
+     */
+    public static Snapshot take(Object root, Iterator<Map<String, AttributeValue>> items) {
+        Snapshot snapshot = new Snapshot(keyNames(root), new HashMap<>());
+        items.forEachRemaining(item -> {
+            Map<String, AttributeValue> key = snapshot.key(item);
+            if (!key.isEmpty()) {
+                snapshot.fingerprints.put(key, new ItemPrint(item));
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * Compares the current items of the aggregate against the snapshot. Items which are new or
+     * whose fingerprint changed are reported as changed, along with the attributes which changed
+     * for those which were already there, and keys in the snapshot which no longer have an item
+     * are reported as removed. Items without a key can't be tracked and are always considered
+     * new.
+     */
+    public ChangeSet diff(Iterator<Map<String, AttributeValue>> items) {
+        Map<Map<String, AttributeValue>, ItemPrint> current = new HashMap<>();
+        List<Map<String, AttributeValue>> added = new ArrayList<>();
+        List<ItemUpdate> updates = new ArrayList<>();
+        items.forEachRemaining(item -> {
+            Map<String, AttributeValue> key = key(item);
+            if (key.isEmpty()) {
+                added.add(item);
+                return;
+            }
+            ItemPrint print = new ItemPrint(item);
+            current.put(key, print);
+            ItemPrint previous = fingerprints.get(key);
+            if (Objects.isNull(previous)) {
+                added.add(item);
+            } else if (previous.item != print.item) {
+                updates.add(update(key, item, previous, print));
+            }
+        });
+        List<Map<String, AttributeValue>> removed = new ArrayList<>();
+        for (Map<String, AttributeValue> key : fingerprints.keySet()) {
+            if (!current.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        return new ChangeSet(added, updates, removed, new Snapshot(keyNames, current));
+    }
+
+    /**
+     * Picks the attributes which differ between the snapshot and the item. Key attributes are
+     * the same by definition, and can't be updated anyway.
+     */
+    private ItemUpdate update(Map<String, AttributeValue> key, Map<String, AttributeValue> item,
+                              ItemPrint previous, ItemPrint print) {
+        Map<String, AttributeValue> set = new HashMap<>();
+        for (Map.Entry<String, Long> attribute : print.attributes.entrySet()) {
+            String name = attribute.getKey();
+            if (!keyNames.contains(name)
+                    && !attribute.getValue().equals(previous.attributes.get(name))) {
+                set.put(name, item.get(name));
+            }
+        }
+        Set<String> remove = new LinkedHashSet<>(previous.attributes.keySet());
+        remove.removeAll(print.attributes.keySet());
+        return new ItemUpdate(key, item, set, remove);
+    }
+
+    public int size() {
+        return fingerprints.size();
+    }
+
+    public Set<String> getKeyNames() {
+        return Collections.unmodifiableSet(keyNames);
+    }
+
+    /**
+     * Picks the key attributes out of the item.
+     */
+    public Map<String, AttributeValue> key(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        for (String name : keyNames) {
+            AttributeValue value = item.get(name);
+            if (Objects.nonNull(value)) {
+                key.put(name, value);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Key attribute names of every model in the aggregate. In a single table design they are
+     * all the same, but models of an aggregate are free to name their keys differently.
+     */
+    private static Set<String> keyNames(Object root) {
+        Set<String> names = new LinkedHashSet<>();
+        if (root instanceof List<?>) {
+            ((List<?>) root).stream()
+                    .map(Object::getClass)
+                    .distinct()
+                    .forEach(model -> addKeyNames(names, model));
+            return names;
+        }
+        TransformTarget<?> target = TargetDescriber.describe(root.getClass());
+        addKeyNames(names, target.getModel());
+        for (Relation relation : target.getAllRelations()) {
+            addKeyNames(names, relation.getModel());
+        }
+        return names;
+    }
+
+    private static void addKeyNames(Set<String> names, Class<?> model) {
+        if (isInDynamo(model)) {
+            TableMetadata metadata = tableSchema(model).tableMetadata();
+            names.add(metadata.primaryPartitionKey());
+            metadata.primarySortKey().ifPresent(names::add);
+        }
+    }
+
+    private static class ItemPrint {
+        private final long item;
+        private final Map<String, Long> attributes = new HashMap<>();
+
+        private ItemPrint(Map<String, AttributeValue> item) {
+            this.item = Fingerprints.of(item);
+            item.forEach((name, value) -> attributes.put(name, Fingerprints.of(value)));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package snorelabs.squilliam.core;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static snorelabs.squilliam.core.DynamoUtils.tableSchema;
+
+/**
+ * Applies DynamoDB Streams records to an aggregate which is already loaded, so a change to one of
+ * its items doesn't mean loading the whole partition again. Records are dispatched by the item
+ * type attribute of their image, the same way the PartitionAggregator groups items, and each one
+ * is applied as a patch of a single member: the new image replaces the member with the same key
+ * (or is appended when there is none), and a removal takes the member out.
+ * ============================================================================================
+ * apply(root, record):
+ *     image = old_image(record) if is_remove(record) else new_image(record)
+ *     if type(image) == root_type:
+ *         return null if is_remove(record) else instance(image) with the relations of root
+ *     relation = relations[type(image)] or nested_relations[type(image)]
+ *     owner = root if relation in relations else parent(relation, image)  # see NestedMembers
+ *     if is_remove(record):
+ *         relation.remove(owner, key(record))
+ *     else:
+ *         relation.replace_or_append(owner, instance(image))
+ *     return root
+ * ============================================================================================
+ * Replaced members keep their nested relations, and lists are replaced rather than modified so
+ * anyone iterating the old one isn't disturbed (lazy lists stay lazy). Records of item types the
+ * aggregate has no place for are ignored, and a REMOVE without an old image (from a KEYS_ONLY
+ * stream) takes out whichever item of the aggregate has its key. The root is patched in place,
+ * except when the root item itself changes: it is then a new instance, which is why the aggregate
+ * to keep is always the one returned. Aggregates other threads may be reading should be copied
+ * before they are patched, as the AggregateCache does.
+ */
+public class StreamPatcher<T> {
+    private final String typeAttr;
+    private final TransformTarget<T> target;
+
+    public StreamPatcher(String typeAttr, TransformTarget<T> target) {
+        this.typeAttr = typeAttr;
+        this.target = target;
+    }
+
+    /**
+     * Applies the record to the aggregate, returning the patched aggregate, or null when the
+     * record removed the root item.
+     */
+    public T apply(T root, Record record) {
+        StreamRecord change = record.dynamodb();
+        boolean remove = record.eventName() == OperationType.REMOVE;
+        Map<String, AttributeValue> image = remove ? change.oldImage() : change.newImage();
+        if (Objects.isNull(image) || image.isEmpty()) {
+            if (!remove) {
+                throw new IllegalArgumentException("Stream records need the new image of the"
+                        + " item, from a NEW_IMAGE or NEW_AND_OLD_IMAGES stream");
+            }
+            return removeByKey(root, change.keys());
+        }
+        Map<String, AttributeValue> key = change.hasKeys() && !change.keys().isEmpty()
+                ? change.keys()
+                : image;
+
+        AttributeValue type = image.get(typeAttr);
+        if (Objects.isNull(type) || Objects.isNull(type.s())) {
+            return root;
+        }
+        String itemType = type.s();
+        if (target.isInDynamo() && itemType.equals(target.getItemType())) {
+            return remove ? null : replaceRoot(root, image);
+        }
+        Relation relation = Optional.ofNullable(target.getRelations().get(itemType))
+                .orElseGet(() -> target.getNestedRelations().get(itemType));
+        if (Objects.isNull(relation)) {
+            return root;
+        }
+        Object owner = owner(root, relation, image);
+        if (Objects.nonNull(owner)) {
+            patch(owner, relation, key, remove ? null : image);
+        }
+        return root;
+    }
+
+    /**
+     * A new root from the image, holding on to the relations of the one it replaces.
+     */
+    private T replaceRoot(T root, Map<String, AttributeValue> image) {
+        T patched = tableSchema(target.getModel()).mapToItem(image);
+        carryOver(target.getRelations().values(), root, patched);
+        for (Reference reference : target.getReferences()) {
+            reference.move(root, patched);
+        }
+        return patched;
+    }
+
+    /**
+     * Finds the member a nested item belongs to, linked the same way as when the partition was
+     * loaded. Items of relations of the root belong to the root.
+     */
+    private Object owner(T root, Relation relation, Map<String, AttributeValue> image) {
+        Relation parent = target.getParent(relation);
+        if (Objects.isNull(parent)) {
+            return root;
+        }
+        Optional<String> parentSortKey = sortKeyName(parent.getModel());
+        if (parentSortKey.isEmpty()) {
+            return null;
+        }
+        NavigableMap<String, Object> candidates = new TreeMap<>();
+        members(root, parent).forEach(member -> {
+            String sortKey = NestedMembers.string(
+                    attributeValue(parent.getModel(), member, parentSortKey.get()));
+            if (Objects.nonNull(sortKey)) {
+                candidates.put(sortKey, member);
+            }
+        });
+        String key = Objects.isNull(relation.getParentKey())
+                ? sortKeyName(relation.getModel())
+                        .map(name -> NestedMembers.string(image.get(name)))
+                        .orElse(null)
+                : NestedMembers.string(image.get(relation.getParentKey()));
+        return NestedMembers.parent(relation, candidates, key);
+    }
+
+    /**
+     * Every member of the relation in the aggregate, across all the members owning it.
+     */
+    private Stream<?> members(T root, Relation relation) {
+        return owners(root, relation).flatMap(relation::members);
+    }
+
+    private Stream<?> owners(T root, Relation relation) {
+        Relation parent = target.getParent(relation);
+        return Objects.isNull(parent) ? Stream.of(root) : members(root, parent);
+    }
+
+    /**
+     * Without an image there is no item type to go on, but keys are unique in the table so the
+     * one item of the aggregate with the key is the one which was removed.
+     */
+    private T removeByKey(T root, Map<String, AttributeValue> key) {
+        if (Objects.isNull(key) || key.isEmpty()) {
+            throw new IllegalArgumentException("Stream record has neither keys nor an image");
+        }
+        if (target.isInDynamo() && matches(target.getModel(), root, key)) {
+            return null;
+        }
+        for (Relation relation : target.getAllRelations()) {
+            Optional<?> owner = owners(root, relation)
+                    .filter(candidate -> relation.members(candidate)
+                            .anyMatch(member -> matches(relation.getModel(), member, key)))
+                    .findFirst();
+            if (owner.isPresent()) {
+                patch(owner.get(), relation, key, null);
+                return root;
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Replaces (or appends) the member with the key by the item, or removes it when there is no
+     * item.
+     */
+    private static void patch(Object owner, Relation relation, Map<String, AttributeValue> key,
+                              Map<String, AttributeValue> item) {
+        Class<?> model = relation.getModel();
+        Object current = relation.get(owner);
+        if (current instanceof LazyList<?> lazy) {
+            List<Map<String, AttributeValue>> items = lazy.items().collect(Collectors.toList());
+            replace(items, indexOf(items, model, key), item);
+            relation.set(owner, PartitionTransformer.lazyInstances(items, model));
+            return;
+        }
+        Object patched = Objects.isNull(item) ? null : tableSchema(model).mapToItem(item);
+        if (!relation.isMany()) {
+            if (matches(model, current, key)) {
+                carryOver(relation.getRelations().values(), current, patched);
+                relation.set(owner, patched);
+            } else if (Objects.nonNull(patched)) {
+                relation.set(owner, patched);
+            }
+            return;
+        }
+        List<Object> members = Objects.isNull(current)
+                ? new ArrayList<>()
+                : new ArrayList<>((List<?>) current);
+        int index = indexOf(members, model, key);
+        if (index >= 0) {
+            carryOver(relation.getRelations().values(), members.get(index), patched);
+        }
+        replace(members, index, patched);
+        relation.set(owner, members);
+    }
+
+    private static int indexOf(List<?> members, Class<?> model, Map<String, AttributeValue> key) {
+        for (int i = 0; i < members.size(); i++) {
+            if (matches(model, members.get(i), key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static <E> void replace(List<E> list, int index, E replacement) {
+        if (index < 0) {
+            if (Objects.nonNull(replacement)) {
+                list.add(replacement);
+            }
+        } else if (Objects.isNull(replacement)) {
+            list.remove(index);
+        } else {
+            list.set(index, replacement);
+        }
+    }
+
+    private static void carryOver(Collection<Relation> relations, Object from, Object to) {
+        if (Objects.isNull(from) || Objects.isNull(to)) {
+            return;
+        }
+        for (Relation relation : relations) {
+            relation.set(to, relation.get(from));
+        }
+    }
+
+    /**
+     * Whether the member (an instance of the model, or an item) has the key.
+     */
+    private static boolean matches(Class<?> model, Object member, Map<String, AttributeValue> key) {
+        if (Objects.isNull(member)) {
+            return false;
+        }
+        TableMetadata metadata = tableSchema(model).tableMetadata();
+        List<String> names = new ArrayList<>();
+        names.add(metadata.primaryPartitionKey());
+        metadata.primarySortKey().ifPresent(names::add);
+        for (String name : names) {
+            if (!Objects.equals(key.get(name), attributeValue(model, member, name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AttributeValue attributeValue(Class<?> model, Object member, String name) {
+        if (member instanceof Map<?, ?> item) {
+            return (AttributeValue) item.get(name);
+        }
+        TableSchema schema = tableSchema(model);
+        return schema.attributeValue(member, name);
+    }
+
+    private static Optional<String> sortKeyName(Class<?> model) {
+        return tableSchema(model).tableMetadata().primarySortKey();
+    }
+}
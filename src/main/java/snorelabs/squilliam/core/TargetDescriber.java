@@ -1,35 +1,135 @@
 package snorelabs.squilliam.core;
 
+import snorelabs.squilliam.core.annotations.HasMany;
+import snorelabs.squilliam.core.annotations.HasOne;
+
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static snorelabs.squilliam.core.Predicates.isInDynamo;
 import static snorelabs.squilliam.core.Predicates.isManyAnnotated;
 
 public class TargetDescriber {
+    // Descriptions hang off their class rather than a static map, so they don't keep classes of
+    // other class loaders (hot reloading, generated classes) from being unloaded
+    private static final ClassValue<TransformTarget<?>> TARGETS = new ClassValue<>() {
+        @Override
+        protected TransformTarget<?> computeValue(Class<?> targetClass) {
+            return compile(targetClass);
+        }
+    };
+
+    /**
+     * Gets the description of the target class. Descriptions are immutable, so the reflective
+     * work is only done the first time a class is described and the result is reused from then
+     * on.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TransformTarget<T> describe(Class<T> targetClass) {
+        return (TransformTarget<T>) TARGETS.get(targetClass);
+    }
+
     /**
      * This method reflectively describes the target class. The process is fairly straightforward,
      * we iterate through the inheritance chain and retrieve all fields which are relation
      * annotated. The next step is to create a map of the relevant class's item type.
      */
-    public static <T> TransformTarget<T> describe(Class<T> targetClass) {
-        return new TransformTarget<>(targetClass, allRelations(targetClass));
+    protected static <T> TransformTarget<T> compile(Class<T> targetClass) {
+        return new TransformTarget<>(targetClass,
+                isInDynamo(targetClass),
+                Shenanigans.findItemType(targetClass).orElse(null),
+                allRelations(targetClass),
+                Shenanigans.instantiator(targetClass),
+                Shenanigans.findSortKeyPrefix(targetClass).orElse(null),
+                allReferences(targetClass));
     }
 
     /**
-     * Returns all relationships of the class as a map of their item type to relation.
+     * Returns all relationships of the class as a map of their item type to relation. Relations
+     * of the related models are described along with them, all the way down.
      */
     public static Map<String, Relation> allRelations(Class<?> targetClass) {
-        return Shenanigans.relationFields(targetClass)
-                .map(TargetDescriber::relation)
-                .collect(Collectors.toMap(r -> Shenanigans.dynamoItemType(r.getModel()), r -> r));
+        return allRelations(targetClass, List.of(targetClass));
+    }
+
+    private static Map<String, Relation> allRelations(Class<?> model, List<Class<?>> path) {
+        return Shenanigans.relationFields(model)
+                .map(field -> relation(field, path))
+                .collect(Collectors.toMap(Relation::getItemType, r -> r));
+    }
+
+    /**
+     * Returns all relations of the class which are resolved by key. Only Dynamo items can hold
+     * the keys they refer to.
+     */
+    public static List<Reference> allReferences(Class<?> targetClass) {
+        List<Reference> references = Shenanigans.referenceFields(targetClass)
+                .map(TargetDescriber::reference)
+                .collect(Collectors.toList());
+        if (!references.isEmpty() && !isInDynamo(targetClass)) {
+            throw new ModelException("References need a root which is a Dynamo item", targetClass);
+        }
+        return references;
+    }
+
+    /**
+     * Creates a reference for the given @HasOne field.
+     */
+    public static Reference reference(Field field) {
+        HasOne hasOne = field.getAnnotation(HasOne.class);
+        Class<?> model = field.getType();
+        if (!isInDynamo(model)) {
+            throw new ModelException("Referenced model is not a Dynamo item", model);
+        }
+        return new Reference(model, Shenanigans.accessor(field), hasOne.partitionKeyRef(),
+                emptyToNull(hasOne.sortKeyRef()), emptyToNull(hasOne.table()));
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
     }
 
     /**
-     * Creates a relation (Class + Field pairing) for the given field.
+     * Creates a relation for the given field, resolving the item type of the related model.
      */
     public static Relation relation(Field field) {
-        return new Relation(fieldClass(field), field);
+        return relation(field, List.of(field.getDeclaringClass()));
+    }
+
+    /**
+     * Creates a relation for a field of the last model of the path, which is the chain of models
+     * leading to it from the root. A model can't appear twice on the path, an aggregate holding
+     * itself would never end. References are only resolved on the root, so related models can't
+     * declare any.
+     */
+    private static Relation relation(Field field, List<Class<?>> path) {
+        Class<?> model = fieldClass(field);
+        if (path.contains(model)) {
+            throw new ModelException("Relation nests a model within itself", model);
+        }
+        if (Shenanigans.referenceFields(model).findAny().isPresent()) {
+            throw new ModelException("References are only resolved on the root", model);
+        }
+        List<Class<?>> nested = new ArrayList<>(path);
+        nested.add(model);
+        Map<String, Relation> relations = allRelations(model, nested);
+        boolean lazy = isManyAnnotated(field) && field.getAnnotation(HasMany.class).lazy();
+        if (lazy && (path.size() > 1 || !relations.isEmpty())) {
+            throw new ModelException("Only relations of the root without nested relations can be"
+                    + " lazy", model);
+        }
+        return new Relation(model, Shenanigans.accessor(field), Shenanigans.dynamoItemType(model),
+                isManyAnnotated(field), Shenanigans.findSortKeyPrefix(model).orElseThrow(),
+                relations, path.size() > 1 ? parentKey(field) : null, lazy);
+    }
+
+    private static String parentKey(Field field) {
+        return emptyToNull(isManyAnnotated(field)
+                ? field.getAnnotation(HasMany.class).parentKey()
+                : field.getAnnotation(HasOne.class).parentKey());
     }
 
     /**
@@ -37,7 +137,7 @@ public class TargetDescriber {
      * some special treatment to get the class which represents an individual row.
      */
     public static Class<?> fieldClass(Field field) {
-        return isManyAnnotated(field) ? Shenanigans.listClass(field) : field.getClass();
+        return isManyAnnotated(field) ? Shenanigans.listClass(field) : field.getType();
     }
 
 }
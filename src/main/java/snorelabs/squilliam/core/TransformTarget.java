@@ -1,21 +1,129 @@
 package snorelabs.squilliam.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Immutable description of a target model, built once per class by the TargetDescriber.
+ */
 public class TransformTarget<T> {
-    private Class<T> model;
-    private Map<String, Relation> relations;
+    private final Class<T> model;
+    private final boolean inDynamo;
+    private final String itemType;
+    private final Map<String, Relation> relations;
+    private final Instantiator<T> instantiator;
+    private final String sortKeyPrefix;
+    private final List<Reference> references;
+    private final List<Relation> allRelations = new ArrayList<>();
+    private final Map<String, Relation> nestedRelations = new HashMap<>();
+    private final Map<Relation, Relation> parents = new IdentityHashMap<>();
 
-    public TransformTarget(Class<T> model, Map<String, Relation> relations) {
+    public TransformTarget(Class<T> model, boolean inDynamo, String itemType,
+                           Map<String, Relation> relations, Instantiator<T> instantiator,
+                           String sortKeyPrefix) {
+        this(model, inDynamo, itemType, relations, instantiator, sortKeyPrefix, List.of());
+    }
+
+    public TransformTarget(Class<T> model, boolean inDynamo, String itemType,
+                           Map<String, Relation> relations, Instantiator<T> instantiator,
+                           String sortKeyPrefix, List<Reference> references) {
         this.model = model;
-        this.relations = relations;
+        this.inDynamo = inDynamo;
+        this.itemType = itemType;
+        this.relations = Collections.unmodifiableMap(relations);
+        this.instantiator = instantiator;
+        this.sortKeyPrefix = sortKeyPrefix;
+        this.references = List.copyOf(references);
+        for (Relation relation : relations.values()) {
+            allRelations.add(relation);
+            addNested(relation);
+        }
+    }
+
+    /**
+     * Walks down the relations of a related model. Nested items are routed by their item type
+     * like any other, so every item type of the graph has to be unique.
+     */
+    private void addNested(Relation parent) {
+        for (Relation relation : parent.getRelations().values()) {
+            String nestedType = relation.getItemType();
+            if (nestedType.equals(itemType) || relations.containsKey(nestedType)
+                    || nestedRelations.put(nestedType, relation) != null) {
+                throw new ModelException("Item type " + nestedType + " is mapped twice", model);
+            }
+            parents.put(relation, parent);
+            allRelations.add(relation);
+            addNested(relation);
+        }
     }
 
     public Class<T> getModel() {
         return model;
     }
 
+    public boolean isInDynamo() {
+        return inDynamo;
+    }
+
+    /**
+     * Item type of the root model, or null when the root doesn't declare one (which is only
+     * valid for roots that aren't DynamoDB items or are only ever written).
+     */
+    public String getItemType() {
+        return itemType;
+    }
+
+    /**
+     * What the sort key of the root item begins with, or null when the root doesn't declare an
+     * item type. See ItemType.
+     */
+    public String getSortKeyPrefix() {
+        return sortKeyPrefix;
+    }
+
     public Map<String, Relation> getRelations() {
         return relations;
     }
+
+    /**
+     * Every relation of the aggregate, the relations of the root followed by the nested ones.
+     */
+    public List<Relation> getAllRelations() {
+        return Collections.unmodifiableList(allRelations);
+    }
+
+    /**
+     * Relations of related models (and of theirs) keyed by item type. Empty unless a related
+     * model declares relations of its own.
+     */
+    public Map<String, Relation> getNestedRelations() {
+        return Collections.unmodifiableMap(nestedRelations);
+    }
+
+    /**
+     * The relation whose members the members of the nested relation belong to, or null for a
+     * relation of the root.
+     */
+    public Relation getParent(Relation relation) {
+        return parents.get(relation);
+    }
+
+    /**
+     * Relations resolved by key from outside the partition, which aren't part of the aggregate's
+     * items.
+     */
+    public List<Reference> getReferences() {
+        return references;
+    }
+
+    /**
+     * Creates an instance of the model using its default constructor.
+     */
+    public T newInstance() {
+        return instantiator.newInstance();
+    }
 }
@@ -8,4 +8,17 @@ import java.lang.annotation.Target;
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface HasMany {
+    /**
+     * For a relation of a related model (e.g. the certifications of an employee of a team), the
+     * attribute of the relation's items holding the sort key of the item they belong to. Empty to
+     * link them by sort key instead: an item belongs to the one whose sort key its own begins
+     * with.
+     */
+    String parentKey() default "";
+
+    /**
+     * Leaves the members as the items they were loaded from until they are read, see LazyList.
+     * Only relations of the root without relations of their own can be lazy.
+     */
+    boolean lazy() default false;
 }
@@ -8,4 +8,29 @@ import java.lang.annotation.Target;
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface HasOne {
+    /**
+     * Attribute of the owning item holding the partition key of the related item, for related
+     * items which live outside the partition (e.g. shared by many aggregates). Such relations are
+     * resolved by key with BatchGetItem once the partition is loaded, and are never written as
+     * part of the aggregate. Only the root may declare them. Empty for a related item in the same
+     * partition.
+     */
+    String partitionKeyRef() default "";
+
+    /**
+     * Attribute of the owning item holding the sort key of the related item, if its table has
+     * one.
+     */
+    String sortKeyRef() default "";
+
+    /**
+     * Table the related item lives in. Defaults to the table the aggregate was loaded from.
+     */
+    String table() default "";
+
+    /**
+     * For a relation of a related model, the attribute of the related item holding the sort key
+     * of the item it belongs to, see HasMany.
+     */
+    String parentKey() default "";
 }
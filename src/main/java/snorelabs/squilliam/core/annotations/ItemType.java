@@ -9,4 +9,12 @@ import java.lang.annotation.Target;
 @Target({ElementType.FIELD, ElementType.METHOD})
 public @interface ItemType {
     String value();
+
+    /**
+     * What the sort keys of items of this type begin with, for tables which lay out each type
+     * under its own sort key prefix. Defaults to the item type itself, which is also a prefix of
+     * any type named after it ("Team" of "TeamSettings"); selective loads filter those out but
+     * still read them, so such types should declare a prefix ending in a delimiter ("Team#").
+     */
+    String sortKeyPrefix() default "";
 }
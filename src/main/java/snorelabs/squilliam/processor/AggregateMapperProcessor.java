@@ -0,0 +1,520 @@
+package snorelabs.squilliam.processor;
+
+import snorelabs.squilliam.core.AggregateMappers;
+import snorelabs.squilliam.core.annotations.HasMany;
+import snorelabs.squilliam.core.annotations.HasOne;
+import snorelabs.squilliam.core.annotations.ItemType;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Generates an AggregateMapper for every class declaring @HasMany or @HasOne fields. This is the
+ * codegen the Shenanigans class has been feeling guilty about: the generated mapper reads and
+ * writes the relation fields directly (or through their bean accessors) and picks the relation for
+ * an item with a switch on its item type, so there is no reflection left on the transform
+ * path. Classes the generated code can't reach (private relation fields without accessors, no
+ * usable default constructor, generics) or whose related models have relations of their own are
+ * skipped with a note and keep using the reflective transformers at runtime.
+ */
+@SupportedAnnotationTypes({
+        "snorelabs.squilliam.core.annotations.HasMany",
+        "snorelabs.squilliam.core.annotations.HasOne"
+})
+public class AggregateMapperProcessor extends AbstractProcessor {
+    private static final String DYNAMO_BEAN =
+            "software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean";
+    private static final String ITEM = "java.util.Map<String, software.amazon.awssdk.services"
+            + ".dynamodb.model.AttributeValue>";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+        Set<TypeElement> models = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : env.getElementsAnnotatedWith(annotation)) {
+                if (element.getEnclosingElement() instanceof TypeElement model) {
+                    models.add(model);
+                }
+            }
+        }
+        for (TypeElement model : models) {
+            if (generated.add(model.getQualifiedName().toString())) {
+                generate(model);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Describes the model at compile time and writes its mapper. Anything we can't generate
+     * direct access for is reported as a note and left to the runtime transformers.
+     */
+    private void generate(TypeElement model) {
+        try {
+            MapperModel mapper = describe(model);
+            writeMapper(mapper);
+        } catch (Unsupported e) {
+            note(model, "Skipping generated mapper for " + model.getQualifiedName() + ": "
+                    + e.getMessage());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write mapper: " + e.getMessage(), model);
+        }
+    }
+
+    private MapperModel describe(TypeElement model) throws Unsupported {
+        if (model.getModifiers().contains(Modifier.PRIVATE)
+                || model.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new Unsupported("model must be a non-private concrete class");
+        }
+        if (model.getNestingKind() == NestingKind.MEMBER
+                && !model.getModifiers().contains(Modifier.STATIC)) {
+            throw new Unsupported("inner classes must be static");
+        }
+        if (model.getNestingKind().isNested() && model.getNestingKind() != NestingKind.MEMBER) {
+            throw new Unsupported("local and anonymous classes are not supported");
+        }
+        if (!model.getTypeParameters().isEmpty()) {
+            throw new Unsupported("generic models are not supported");
+        }
+
+        boolean inDynamo = hasAnnotation(model, DYNAMO_BEAN);
+        if (!inDynamo && !hasDefaultConstructor(model)) {
+            throw new Unsupported("no accessible default constructor");
+        }
+
+        List<MappedRelation> relations = new ArrayList<>();
+        Set<String> itemTypes = new HashSet<>();
+        for (VariableElement field : relationFields(model)) {
+            MappedRelation relation = relation(model, field);
+            if (!itemTypes.add(relation.itemType)) {
+                throw new Unsupported("item type " + relation.itemType + " is mapped twice");
+            }
+            relations.add(relation);
+        }
+        String rootType = itemType(model).orElse(null);
+        if (inDynamo && rootType != null && itemTypes.contains(rootType)) {
+            throw new Unsupported("item type " + rootType + " is mapped twice");
+        }
+        return new MapperModel(model, inDynamo, rootType, relations);
+    }
+
+    private MappedRelation relation(TypeElement model, VariableElement field) throws Unsupported {
+        boolean many = field.getAnnotation(HasMany.class) != null;
+        TypeMirror fieldType = field.asType();
+        TypeMirror memberType = fieldType;
+        if (many) {
+            if (!isListAssignable(fieldType)) {
+                throw new Unsupported(field.getSimpleName() + " must be declared as a List");
+            }
+            List<? extends TypeMirror> args = ((DeclaredType) fieldType).getTypeArguments();
+            if (args.size() != 1 || args.get(0).getKind() != TypeKind.DECLARED) {
+                throw new Unsupported(field.getSimpleName() + " needs a concrete element type");
+            }
+            memberType = args.get(0);
+        } else if (fieldType.getKind() != TypeKind.DECLARED) {
+            throw new Unsupported(field.getSimpleName() + " must be a declared type");
+        }
+
+        TypeElement member = (TypeElement) processingEnv.getTypeUtils().asElement(memberType);
+        String itemType = itemType(member).orElseThrow(() -> new Unsupported(
+                member.getQualifiedName() + " has no item type identifier"));
+        if (!relationFields(member).isEmpty()) {
+            throw new Unsupported(member.getQualifiedName() + " has nested relations");
+        }
+        String memberClass = processingEnv.getTypeUtils().erasure(memberType).toString();
+        boolean lazy = many && field.getAnnotation(HasMany.class).lazy();
+        return new MappedRelation(itemType, memberClass, many, lazy,
+                reader(model, field), writer(model, field));
+    }
+
+    /**
+     * Gets an expression reading the field from "root", preferring direct access.
+     */
+    private String reader(TypeElement model, VariableElement field) throws Unsupported {
+        String name = field.getSimpleName().toString();
+        if (isAccessible(model, field)) {
+            return "root." + name;
+        }
+        String getter = "get" + capitalize(name);
+        return findMethod(model, getter, 0)
+                .map(method -> "root." + getter + "()")
+                .orElseThrow(() -> new Unsupported(name + " is not accessible and has no getter"));
+    }
+
+    /**
+     * Gets a format string assigning %s to the field on "root", preferring direct access.
+     */
+    private String writer(TypeElement model, VariableElement field) throws Unsupported {
+        String name = field.getSimpleName().toString();
+        if (isAccessible(model, field) && !field.getModifiers().contains(Modifier.FINAL)) {
+            return "root." + name + " = %s;";
+        }
+        String setter = "set" + capitalize(name);
+        return findMethod(model, setter, 1)
+                .map(method -> "root." + setter + "(%s);")
+                .orElseThrow(() -> new Unsupported(name + " is not assignable and has no setter"));
+    }
+
+    private void writeMapper(MapperModel mapper) throws IOException {
+        String pkg = processingEnv.getElementUtils().getPackageOf(mapper.model)
+                .getQualifiedName().toString();
+        String simpleName = flatName(mapper.model) + AggregateMappers.MAPPER_SUFFIX;
+        String modelClass = mapper.model.getQualifiedName().toString();
+        String mappers = "snorelabs.squilliam.core.AggregateMappers";
+
+        StringBuilder src = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            src.append("package ").append(pkg).append(";\n\n");
+        }
+        src.append("@javax.annotation.processing.Generated(\"")
+                .append(AggregateMapperProcessor.class.getName()).append("\")\n");
+        src.append("public final class ").append(simpleName)
+                .append(" implements snorelabs.squilliam.core.AggregateMapper<")
+                .append(modelClass).append("> {\n");
+
+        src.append("    @Override\n");
+        src.append("    public Class<").append(modelClass).append("> modelClass() {\n");
+        src.append("        return ").append(modelClass).append(".class;\n");
+        src.append("    }\n\n");
+
+        src.append("    @Override\n");
+        src.append("    public snorelabs.squilliam.core.AggregateMapper.Accumulator<")
+                .append(modelClass).append("> accumulator() {\n");
+        src.append("        return new Accumulator();\n");
+        src.append("    }\n\n");
+
+        writeAccumulator(src, mapper, modelClass);
+
+        List<String> parts = new ArrayList<>();
+        for (MappedRelation relation : mapper.relations) {
+            parts.add(mappers + (relation.many ? ".items(" : ".item(") + relation.reader + ", "
+                    + relation.memberClass + ".class)");
+        }
+        if (mapper.inDynamo) {
+            parts.add(mappers + ".item(root, " + modelClass + ".class)");
+        }
+        src.append("    @Override\n");
+        src.append("    public java.util.Iterator<").append(ITEM).append("> items(")
+                .append(modelClass).append(" root) {\n");
+        src.append("        return ").append(mappers).append(".concat(");
+        for (int i = 0; i < parts.size(); i++) {
+            src.append(i == 0 ? "\n" : ",\n").append("                () -> ").append(parts.get(i));
+        }
+        src.append(");\n");
+        src.append("    }\n");
+        src.append("}\n");
+
+        String qualifiedName = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, mapper.model);
+        try (Writer writer = file.openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    /**
+     * Writes the Accumulator of the mapper. Items are converted as they are accepted and held in
+     * a field per relation (raw for lazy relations) until build sets them on the root, which for
+     * a DynamoDB root may only arrive after its members.
+     */
+    private void writeAccumulator(StringBuilder src, MapperModel mapper, String modelClass) {
+        String mappers = "snorelabs.squilliam.core.AggregateMappers";
+        src.append("    private static final class Accumulator\n");
+        src.append("            implements snorelabs.squilliam.core.AggregateMapper.Accumulator<")
+                .append(modelClass).append("> {\n");
+        if (mapper.inDynamo) {
+            src.append("        private ").append(modelClass).append(" rootItem;\n");
+            src.append("        private int rootItems;\n");
+        }
+        for (int i = 0; i < mapper.relations.size(); i++) {
+            src.append("        private ").append(mapper.relations.get(i).fieldType())
+                    .append(" relation").append(i).append(";\n");
+        }
+        src.append("\n");
+
+        src.append("        @Override\n");
+        src.append("        public void accept(String itemType, ").append(ITEM)
+                .append(" item) {\n");
+        src.append("            switch (itemType) {\n");
+        if (mapper.inDynamo && mapper.itemType != null) {
+            src.append("                case ").append(literal(mapper.itemType)).append(":\n");
+            src.append("                    rootItem = ").append(mappers)
+                    .append(".one(rootItem, item, ").append(modelClass).append(".class);\n");
+            src.append("                    rootItems++;\n");
+            src.append("                    break;\n");
+        }
+        for (int i = 0; i < mapper.relations.size(); i++) {
+            MappedRelation relation = mapper.relations.get(i);
+            String field = "relation" + i;
+            src.append("                case ").append(literal(relation.itemType)).append(":\n");
+            src.append("                    ").append(field).append(" = ").append(mappers)
+                    .append(".").append(relation.acceptMethod()).append("(").append(field)
+                    .append(", item").append(relation.lazy ? "" : ", " + relation.memberClass
+                            + ".class").append(");\n");
+            src.append("                    break;\n");
+        }
+        src.append("                default:\n");
+        src.append("                    break;\n");
+        src.append("            }\n");
+        src.append("        }\n\n");
+
+        src.append("        @Override\n");
+        src.append("        public ").append(modelClass).append(" build() {\n");
+        if (mapper.inDynamo) {
+            src.append("            ").append(modelClass).append(" root = ").append(mappers)
+                    .append(".root(rootItem, rootItems, ").append(literal(mapper.itemType))
+                    .append(", ").append(modelClass).append(".class);\n");
+        } else {
+            src.append("            ").append(modelClass).append(" root = new ")
+                    .append(modelClass).append("();\n");
+        }
+        for (int i = 0; i < mapper.relations.size(); i++) {
+            MappedRelation relation = mapper.relations.get(i);
+            String field = "relation" + i;
+            String value = relation.lazy
+                    ? mappers + ".lazy(" + field + ", " + relation.memberClass + ".class)"
+                    : field;
+            src.append("            if (").append(field).append(" != null) {\n");
+            src.append("                ").append(String.format(relation.writer, value))
+                    .append("\n");
+            src.append("            }\n");
+        }
+        src.append("            return root;\n");
+        src.append("        }\n");
+        src.append("    }\n\n");
+    }
+
+    /**
+     * Gets the relation fields of the model and its base classes, in the same order the runtime
+     * describer finds them. References resolved by key are left to the client.
+     */
+    private List<VariableElement> relationFields(TypeElement model) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement curr : hierarchy(model)) {
+            for (VariableElement field : ElementFilter.fieldsIn(curr.getEnclosedElements())) {
+                HasOne hasOne = field.getAnnotation(HasOne.class);
+                if (field.getAnnotation(HasMany.class) != null
+                        || (hasOne != null && hasOne.partitionKeyRef().isEmpty())) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Gets the item type declared by an @ItemType field of the class or its base classes.
+     */
+    private Optional<String> itemType(TypeElement model) {
+        for (TypeElement curr : hierarchy(model)) {
+            for (VariableElement field : ElementFilter.fieldsIn(curr.getEnclosedElements())) {
+                ItemType itemType = field.getAnnotation(ItemType.class);
+                if (itemType != null) {
+                    return Optional.of(itemType.value());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private List<TypeElement> hierarchy(TypeElement model) {
+        List<TypeElement> classes = new ArrayList<>();
+        TypeElement curr = model;
+        while (curr != null && !curr.getQualifiedName().contentEquals("java.lang.Object")) {
+            classes.add(curr);
+            TypeMirror superclass = curr.getSuperclass();
+            curr = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) processingEnv.getTypeUtils().asElement(superclass)
+                    : null;
+        }
+        return classes;
+    }
+
+    private Optional<ExecutableElement> findMethod(TypeElement model, String name, int params) {
+        for (TypeElement curr : hierarchy(model)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(curr.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals(name)
+                        && method.getParameters().size() == params
+                        && isAccessible(model, method)) {
+                    return Optional.of(method);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The generated mapper lives in the model's package, so it can see anything that isn't private
+     * unless it was inherited from a class in another package.
+     */
+    private boolean isAccessible(TypeElement model, Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+        return processingEnv.getElementUtils().getPackageOf(member)
+                .equals(processingEnv.getElementUtils().getPackageOf(model));
+    }
+
+    private boolean hasDefaultConstructor(TypeElement model) {
+        return ElementFilter.constructorsIn(model.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && isAccessible(model, c));
+    }
+
+    private boolean hasAnnotation(TypeElement model, String annotation) {
+        return model.getAnnotationMirrors().stream()
+                .map(mirror -> mirror.getAnnotationType().asElement())
+                .anyMatch(type -> ((TypeElement) type).getQualifiedName().contentEquals(annotation));
+    }
+
+    private boolean isListAssignable(TypeMirror fieldType) {
+        if (fieldType.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeMirror list = processingEnv.getTypeUtils().erasure(
+                processingEnv.getElementUtils().getTypeElement("java.util.List").asType());
+        return processingEnv.getTypeUtils().isAssignable(list,
+                processingEnv.getTypeUtils().erasure(fieldType));
+    }
+
+    /**
+     * Flattens nested class names the same way AggregateMappers.mapperName does.
+     */
+    private String flatName(TypeElement model) {
+        String name = model.getSimpleName().toString();
+        Element enclosing = model.getEnclosingElement();
+        while (enclosing.getKind() == ElementKind.CLASS
+                || enclosing.getKind() == ElementKind.INTERFACE
+                || enclosing.getKind() == ElementKind.ENUM
+                || enclosing.getKind() == ElementKind.RECORD) {
+            name = enclosing.getSimpleName() + "_" + name;
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+                }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void note(Element element, String msg) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, msg, element);
+    }
+
+    private static class MapperModel {
+        private final TypeElement model;
+        private final boolean inDynamo;
+        private final String itemType;
+        private final List<MappedRelation> relations;
+
+        private MapperModel(TypeElement model, boolean inDynamo, String itemType,
+                            List<MappedRelation> relations) {
+            this.model = model;
+            this.inDynamo = inDynamo;
+            this.itemType = itemType;
+            this.relations = relations;
+        }
+    }
+
+    private static class MappedRelation {
+        private final String itemType;
+        private final String memberClass;
+        private final boolean many;
+        private final boolean lazy;
+        private final String reader;
+        private final String writer;
+
+        private MappedRelation(String itemType, String memberClass, boolean many, boolean lazy,
+                               String reader, String writer) {
+            this.itemType = itemType;
+            this.memberClass = memberClass;
+            this.many = many;
+            this.lazy = lazy;
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        /**
+         * The AggregateMappers method accepting an item of the relation into its field.
+         */
+        private String acceptMethod() {
+            if (!many) {
+                return "one";
+            }
+            return lazy ? "lazy" : "many";
+        }
+
+        /**
+         * The type of the Accumulator field holding the relation until the root is built.
+         */
+        private String fieldType() {
+            if (!many) {
+                return memberClass;
+            }
+            return "java.util.List<" + (lazy ? ITEM : memberClass) + ">";
+        }
+    }
+
+    private static class Unsupported extends Exception {
+        private Unsupported(String msg) {
+            super(msg);
+        }
+    }
+}
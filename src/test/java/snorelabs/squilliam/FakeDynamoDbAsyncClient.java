@@ -0,0 +1,77 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Async view of a FakeDynamoDbClient, completing every call on another thread. Calls get threads
+ * of their own (rather than the common pool, which may only have one) so they can overlap.
+ */
+public class FakeDynamoDbAsyncClient implements DynamoDbAsyncClient {
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FakeDynamoDbClient dynamo;
+
+    public FakeDynamoDbAsyncClient(FakeDynamoDbClient dynamo) {
+        this.dynamo = dynamo;
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(QueryRequest request) {
+        return CompletableFuture.supplyAsync(() -> dynamo.query(request), EXECUTOR);
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+        return CompletableFuture.supplyAsync(() -> dynamo.batchWriteItem(request), EXECUTOR);
+    }
+
+    @Override
+    public CompletableFuture<ScanResponse> scan(ScanRequest request) {
+        return CompletableFuture.supplyAsync(() -> dynamo.scan(request), EXECUTOR);
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request) {
+        return CompletableFuture.supplyAsync(() -> dynamo.batchGetItem(request), EXECUTOR);
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request) {
+        return CompletableFuture.supplyAsync(() -> dynamo.updateItem(request), EXECUTOR);
+    }
+
+    @Override
+    public CompletableFuture<TransactWriteItemsResponse> transactWriteItems(
+            TransactWriteItemsRequest request) {
+        return CompletableFuture.supplyAsync(() -> dynamo.transactWriteItems(request), EXECUTOR);
+    }
+
+    @Override
+    public String serviceName() {
+        return dynamo.serviceName();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,341 @@
+package snorelabs.squilliam;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in memory stand in for DynamoDB. Queries return the stored items, ignoring key conditions
+ * other than a sort key prefix, in pages of the request's limit (or the default page size), which
+ * is enough to drive the client through its paging. Batch gets look up the stored items by key.
+ * Batch writes, updates and transactions are recorded rather than applied, along with how many
+ * batches were in flight at once.
+ */
+public class FakeDynamoDbClient implements DynamoDbClient {
+    private static final String PAGE_KEY = "FakePageIndex";
+
+    private final List<Map<String, AttributeValue>> items = new ArrayList<>();
+    private final int defaultPageSize;
+    private final List<QueryRequest> queries = new ArrayList<>();
+    private final List<WriteRequest> writes = new ArrayList<>();
+    private final List<UpdateItemRequest> updates = new ArrayList<>();
+    private final List<TransactWriteItemsRequest> transactions = new ArrayList<>();
+    private final AtomicInteger cancelBudget = new AtomicInteger();
+    private String cancelCode;
+    private final AtomicInteger describes = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger batchWrites = new AtomicInteger();
+    private final AtomicInteger unprocessedBudget = new AtomicInteger();
+    private volatile CountDownLatch overlap = new CountDownLatch(0);
+    private final List<BatchGetItemRequest> batchGets = new ArrayList<>();
+    private final List<ScanRequest> scans = new ArrayList<>();
+    private final AtomicInteger unprocessedGetBudget = new AtomicInteger();
+    private final AtomicInteger failedUpdateBudget = new AtomicInteger();
+
+    public FakeDynamoDbClient(List<Map<String, AttributeValue>> items, int defaultPageSize) {
+        this.items.addAll(items);
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    @Override
+    public synchronized QueryResponse query(QueryRequest request) {
+        queries.add(request);
+        int start = 0;
+        if (request.hasExclusiveStartKey() && request.exclusiveStartKey().containsKey(PAGE_KEY)) {
+            start = Integer.parseInt(request.exclusiveStartKey().get(PAGE_KEY).n());
+        }
+        List<Map<String, AttributeValue>> matching = matching(request);
+        int size = Objects.nonNull(request.limit()) ? request.limit() : defaultPageSize;
+        int end = Math.min(matching.size(), start + size);
+
+        QueryResponse.Builder response = QueryResponse.builder()
+                .items(new ArrayList<>(matching.subList(start, end)))
+                .count(end - start);
+        if (end < matching.size()) {
+            response.lastEvaluatedKey(
+                    Map.of(PAGE_KEY, AttributeValue.builder().n(String.valueOf(end)).build()));
+        }
+        return response.build();
+    }
+
+    /**
+     * Scans the items of the segment in pages, as queries are paged. Items are split into
+     * segments by their "Pk" attribute, so a partition is always scanned by a single segment.
+     */
+    @Override
+    public synchronized ScanResponse scan(ScanRequest request) {
+        scans.add(request);
+        List<Map<String, AttributeValue>> segment = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items) {
+            int total = Objects.requireNonNullElse(request.totalSegments(), 1);
+            int hash = Objects.hashCode(item.get("Pk"));
+            if (Math.floorMod(hash, total) == Objects.requireNonNullElse(request.segment(), 0)) {
+                segment.add(item);
+            }
+        }
+        int start = 0;
+        if (request.hasExclusiveStartKey() && request.exclusiveStartKey().containsKey(PAGE_KEY)) {
+            start = Integer.parseInt(request.exclusiveStartKey().get(PAGE_KEY).n());
+        }
+        int size = Objects.nonNull(request.limit()) ? request.limit() : defaultPageSize;
+        int end = Math.min(segment.size(), start + size);
+
+        ScanResponse.Builder response = ScanResponse.builder()
+                .items(new ArrayList<>(segment.subList(start, end)));
+        if (end < segment.size()) {
+            response.lastEvaluatedKey(
+                    Map.of(PAGE_KEY, AttributeValue.builder().n(String.valueOf(end)).build()));
+        }
+        return response.build();
+    }
+
+    /**
+     * Applies the partition key and sort key prefix of a derived key condition, the only
+     * conditions honoured.
+     */
+    private List<Map<String, AttributeValue>> matching(QueryRequest request) {
+        if (!request.hasExpressionAttributeValues()) {
+            return items;
+        }
+        List<Map<String, AttributeValue>> matching = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items) {
+            if (matches(request, item, "Pk") && matches(request, item, "Sk")) {
+                matching.add(item);
+            }
+        }
+        return matching;
+    }
+
+    private static boolean matches(QueryRequest request, Map<String, AttributeValue> item,
+                                   String key) {
+        AttributeValue expected = request.expressionAttributeValues().get(":squilliam" + key);
+        if (Objects.isNull(expected)) {
+            return true;
+        }
+        AttributeValue value = item.get(request.expressionAttributeNames().get("#squilliam" + key));
+        if (Objects.isNull(value)) {
+            return false;
+        }
+        return key.equals("Pk")
+                ? value.s().equals(expected.s())
+                : value.s().startsWith(expected.s());
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        batchWrites.incrementAndGet();
+        try {
+            // Hold the batch long enough for others to overlap with it
+            overlap.countDown();
+            overlap.await(5, TimeUnit.SECONDS);
+            Thread.sleep(20);
+            Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+            synchronized (this) {
+                for (Map.Entry<String, List<WriteRequest>> table
+                        : request.requestItems().entrySet()) {
+                    for (WriteRequest write : table.getValue()) {
+                        if (unprocessedBudget.getAndDecrement() > 0) {
+                            unprocessed.computeIfAbsent(table.getKey(), t -> new ArrayList<>())
+                                    .add(write);
+                        } else {
+                            writes.add(write);
+                        }
+                    }
+                }
+            }
+            return BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public synchronized BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        batchGets.add(request);
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        Map<String, KeysAndAttributes> unprocessed = new HashMap<>();
+        request.requestItems().forEach((table, keys) -> {
+            List<Map<String, AttributeValue>> tableItems = new ArrayList<>();
+            List<Map<String, AttributeValue>> tableUnprocessed = new ArrayList<>();
+            for (Map<String, AttributeValue> key : keys.keys()) {
+                if (unprocessedGetBudget.getAndDecrement() > 0) {
+                    tableUnprocessed.add(key);
+                    continue;
+                }
+                items.stream()
+                        .filter(item -> item.entrySet().containsAll(key.entrySet()))
+                        .findFirst()
+                        .ifPresent(tableItems::add);
+            }
+            responses.put(table, tableItems);
+            if (!tableUnprocessed.isEmpty()) {
+                unprocessed.put(table, KeysAndAttributes.builder().keys(tableUnprocessed).build());
+            }
+        });
+        return BatchGetItemResponse.builder()
+                .responses(responses)
+                .unprocessedKeys(unprocessed)
+                .build();
+    }
+
+    @Override
+    public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+        if (failedUpdateBudget.getAndDecrement() > 0) {
+            throw ConditionalCheckFailedException.builder()
+                    .message("The conditional request failed")
+                    .build();
+        }
+        updates.add(request);
+        return UpdateItemResponse.builder().build();
+    }
+
+    @Override
+    public synchronized TransactWriteItemsResponse transactWriteItems(
+            TransactWriteItemsRequest request) {
+        transactions.add(request);
+        if (cancelBudget.getAndDecrement() > 0) {
+            List<CancellationReason> reasons = new ArrayList<>();
+            for (int i = 0; i < request.transactItems().size(); i++) {
+                reasons.add(CancellationReason.builder().code(i == 0 ? cancelCode : "None")
+                        .build());
+            }
+            throw TransactionCanceledException.builder()
+                    .message("Transaction cancelled")
+                    .cancellationReasons(reasons)
+                    .build();
+        }
+        return TransactWriteItemsResponse.builder().build();
+    }
+
+    /**
+     * Describes every table as keyed by the partition key of the DynamoRoot model.
+     */
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        describes.incrementAndGet();
+        KeySchemaElement key = KeySchemaElement.builder()
+                .attributeName("Example")
+                .keyType(KeyType.HASH)
+                .build();
+        return DescribeTableResponse.builder()
+                .table(TableDescription.builder().tableName(request.tableName()).keySchema(key)
+                        .build())
+                .build();
+    }
+
+    public int getDescribes() {
+        return describes.get();
+    }
+
+    /**
+     * Cancels the next given number of transactions, blaming the first item with the code.
+     */
+    public synchronized void cancelTransactions(int transactions, String code) {
+        cancelBudget.set(transactions);
+        cancelCode = code;
+    }
+
+    public synchronized List<TransactWriteItemsRequest> getTransactions() {
+        return new ArrayList<>(transactions);
+    }
+
+    /**
+     * Hands back the next given number of write requests as unprocessed, as if throttled.
+     */
+    public void throttleWrites(int requests) {
+        unprocessedBudget.set(requests);
+    }
+
+    /**
+     * Rejects the next given number of updates, as if their condition failed.
+     */
+    public void failUpdates(int updates) {
+        failedUpdateBudget.set(updates);
+    }
+
+    /**
+     * Hands back the next given number of keys to get as unprocessed, as if throttled.
+     */
+    public void throttleGets(int keys) {
+        unprocessedGetBudget.set(keys);
+    }
+
+    public synchronized List<BatchGetItemRequest> getBatchGets() {
+        return new ArrayList<>(batchGets);
+    }
+
+    public synchronized List<ScanRequest> getScans() {
+        return new ArrayList<>(scans);
+    }
+
+    public synchronized List<WriteRequest> getWrites() {
+        return new ArrayList<>(writes);
+    }
+
+    public synchronized List<UpdateItemRequest> getUpdates() {
+        return new ArrayList<>(updates);
+    }
+
+    public int getBatchWrites() {
+        return batchWrites.get();
+    }
+
+    /**
+     * Holds the first batch writes until the given number of them are in flight together, so a
+     * client which sends them concurrently is sure to be seen doing it.
+     */
+    public void holdBatchesUntilOverlapping(int batches) {
+        overlap = new CountDownLatch(batches);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public synchronized List<QueryRequest> getQueries() {
+        return new ArrayList<>(queries);
+    }
+
+    @Override
+    public String serviceName() {
+        return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+}
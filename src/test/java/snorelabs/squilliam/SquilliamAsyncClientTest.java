@@ -0,0 +1,369 @@
+package snorelabs.squilliam;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.DomainTransformer;
+import snorelabs.squilliam.core.PartitionException;
+import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.Employee;
+import snorelabs.squilliam.core.models.Manager;
+import snorelabs.squilliam.core.models.NonDynamoRoot;
+import snorelabs.squilliam.core.models.Project;
+import snorelabs.squilliam.core.models.Team;
+import snorelabs.squilliam.core.models.TwoFieldMember;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+public class SquilliamAsyncClientTest {
+    private static final String TABLE = "Table";
+
+    private static List<Map<String, AttributeValue>> items(int count) {
+        List<TwoFieldMember> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new TwoFieldMember("M" + i, i));
+        }
+        return DomainTransformer.transform(new NonDynamoRoot(members));
+    }
+
+    private static List<Map<String, AttributeValue>> teams(String... teamIds) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (String teamId : teamIds) {
+            items.addAll(DomainTransformer.transform(new Team(teamId,
+                    List.of(new Employee(teamId, "Bob"), new Employee(teamId, "Carol")),
+                    new Manager(teamId, "Alice"))));
+        }
+        return items;
+    }
+
+    @Test
+    public void loadFollowsPages() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items(7), 2);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .build();
+
+        NonDynamoRoot loaded = client.load(QueryRequest.builder().build(), NonDynamoRoot.class)
+                .join();
+
+        assert dynamo.getQueries().size() == 4;
+        assert loaded.getMembers().size() == 7;
+        // Pages are handed over in order
+        assert loaded.getMembers().get(6).getVal1().equals("M6");
+    }
+
+    @Test
+    public void queryFollowsPages() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items(5), 2);
+        SquilliamAsyncClient client =
+                new SquilliamAsyncClient(new FakeDynamoDbAsyncClient(dynamo), "ItemType");
+
+        List<TwoFieldMember> members =
+                client.query(QueryRequest.builder().build(), TwoFieldMember.class).join();
+
+        assert members.size() == 5;
+    }
+
+    @Test
+    public void pageGuards() {
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(new FakeDynamoDbClient(items(7), 2)))
+                .itemAttrName("ItemType")
+                .maxPages(2)
+                .build();
+
+        try {
+            client.load(QueryRequest.builder().build(), NonDynamoRoot.class).join();
+            assert false;
+        } catch (CompletionException e) {
+            assert e.getCause() instanceof PageLimitException;
+        }
+    }
+
+    @Test
+    public void loadOnlyRequestedRelations() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(teams("T1"), 100);
+        SquilliamAsyncClient client =
+                new SquilliamAsyncClient(new FakeDynamoDbAsyncClient(dynamo), "ItemType");
+
+        Team loaded = client.loadOnly(Team.class, TABLE, "T1", "employees").join();
+
+        // One query for the root and one for the employees, the manager is never read
+        assert dynamo.getQueries().size() == 2;
+        assert loaded.getEmployees().size() == 2;
+        assert loaded.getManager() == null;
+    }
+
+    @Test
+    public void loadAllKeepsOrderAndReportsFailures() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(teams("T1", "T2"), 100);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .maxConcurrentLoads(2)
+                .build();
+
+        List<LoadResult<Team>> results =
+                client.loadAll(List.of("T2", "T3", "T1"), Team.class, TABLE).join();
+
+        // Results line up with the keys, and the partition without a root fails on its own
+        assert results.size() == 3;
+        assert results.get(0).getValue().getTeamId().equals("T2");
+        assert results.get(0).getValue().getEmployees().size() == 2;
+        assert !results.get(1).isLoaded();
+        assert results.get(1).getError() instanceof PartitionException;
+        assert results.get(2).getValue().getTeamId().equals("T1");
+        assert dynamo.getQueries().size() == 3;
+    }
+
+    @Test
+    public void loadAllFailsManyKeysWithoutRecursing() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 2);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .maxConcurrentLoads(1)
+                .build();
+
+        // Each key fails before any query is sent, so every load completes right away
+        List<LoadResult<Team>> results = client.loadAll(
+                Collections.nCopies(50_000, Boolean.TRUE), Team.class, "Table").join();
+
+        assert results.size() == 50_000;
+        assert results.stream().noneMatch(LoadResult::isLoaded);
+        assert results.get(49_999).getError() instanceof IllegalArgumentException;
+        assert dynamo.getQueries().isEmpty();
+    }
+
+    @Test
+    public void loadAllResolvesReferencesInBatches() {
+        Manager alice = new Manager("T1", "Alice");
+        Manager bob = new Manager("T2", "Bob");
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.addAll(DomainTransformer.transform(alice));
+        items.addAll(DomainTransformer.transform(bob));
+        items.addAll(DomainTransformer.transform(new Project("P1", alice)));
+        items.addAll(DomainTransformer.transform(new Project("P2", alice)));
+        items.addAll(DomainTransformer.transform(new Project("P3", bob)));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        dynamo.throttleGets(1);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(3, Duration.ZERO, Duration.ZERO))
+                .build();
+
+        List<LoadResult<Project>> results =
+                client.loadAll(List.of("P1", "P2", "P3"), Project.class, TABLE).join();
+
+        // The shared manager is read once, and the throttled key is read again on its own
+        List<BatchGetItemRequest> gets = dynamo.getBatchGets();
+        assert gets.size() == 2;
+        assert gets.get(0).requestItems().get(TABLE).keys().size() == 2;
+        assert gets.get(1).requestItems().get(TABLE).keys().size() == 1;
+        assert results.get(0).getValue().getManager().getSortKey().equals("MGR#Alice");
+        assert results.get(1).getValue().getManager().getSortKey().equals("MGR#Alice");
+        assert results.get(2).getValue().getManager().getSortKey().equals("MGR#Bob");
+    }
+
+    @Test
+    public void scanGroupsSegmentsIntoAggregates() {
+        // Pages of two items, so every team spans pages
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(teams("T1", "T2", "T3"), 2);
+        SquilliamAsyncClient client =
+                new SquilliamAsyncClient(new FakeDynamoDbAsyncClient(dynamo), "ItemType");
+
+        List<Team> teams = new ArrayList<>();
+        client.scan(ScanRequest.builder().tableName(TABLE).build(), Team.class, 2, teams::add)
+                .join();
+
+        assert teams.size() == 3;
+        assert teams.stream().map(Team::getTeamId).collect(Collectors.toSet())
+                .equals(Set.of("T1", "T2", "T3"));
+        for (Team team : teams) {
+            assert team.getEmployees().size() == 2;
+            assert team.getManager().getTeamId().equals(team.getTeamId());
+        }
+        assert dynamo.getScans().stream()
+                .map(ScanRequest::segment)
+                .collect(Collectors.toSet())
+                .equals(Set.of(0, 1));
+    }
+
+    @Test
+    public void cacheServesLoadsUntilWritten() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(teams("T1"), 100);
+        AggregateCache cache = AggregateCache.builder().build();
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .cache(cache)
+                .build();
+
+        Team first = client.load(Team.class, TABLE, "T1").join();
+        assert client.load(Team.class, TABLE, "T1").join() == first;
+        assert dynamo.getQueries().size() == 1;
+        assert cache.size() == 1;
+
+        // Writing the team drops it
+        client.writeAll(new Team("T1", List.of(), new Manager("T1", "Alice")), TABLE).join();
+        assert cache.size() == 0;
+        assert client.load(Team.class, TABLE, "T1").join() != first;
+        assert dynamo.getQueries().size() == 2;
+        assert cache.getStats().getHits() == 1;
+    }
+
+    @Test
+    public void concurrentLoadsShareOneQuery() {
+        CountDownLatch release = new CountDownLatch(1);
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(teams("T1"), 100) {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.query(request);
+            }
+        };
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .loadSharing(LoadSharing.COPIED)
+                .build();
+
+        // Loads never block the caller, so every one joins the flight of the first
+        List<CompletableFuture<Team>> loads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            loads.add(client.load(Team.class, TABLE, "T1"));
+        }
+        release.countDown();
+
+        Set<Team> teams = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CompletableFuture<Team> load : loads) {
+            Team team = load.join();
+            assert team.getEmployees().size() == 2;
+            assert team.getManager().getSortKey().equals("MGR#Alice");
+            teams.add(team);
+        }
+        assert dynamo.getQueries().size() == 1;
+        // Every caller got its own copy
+        assert teams.size() == 4;
+    }
+
+    @Test
+    public void writeWithRetries() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 2);
+        dynamo.throttleWrites(10);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(5, Duration.ofMillis(1), Duration.ofMillis(10)))
+                .build();
+
+        List<TwoFieldMember> members = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            members.add(new TwoFieldMember("M" + i, i));
+        }
+        WriteResult result = client.writeAll(new NonDynamoRoot(members), "Table").join();
+
+        assert result.isComplete();
+        assert dynamo.getWrites().size() == 60;
+        // 3 batches plus at least one retry
+        assert result.getResponses().size() > 3;
+    }
+
+    @Test
+    public void atomicWritesRetryConflictsAndReportFailures() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 100);
+        dynamo.cancelTransactions(1, "TransactionConflict");
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(10)))
+                .build();
+        List<TwoFieldMember> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(new TwoFieldMember("M" + i, i));
+        }
+        DynamoRoot root = new DynamoRoot("C", members);
+
+        // A conflict is retried with the same token, so it can't be applied twice
+        TransactionResult result = client.writeAtomically(root, TABLE).join();
+        assert result.isCommitted();
+        List<TransactWriteItemsRequest> transactions = dynamo.getTransactions();
+        assert transactions.size() == 2;
+        assert transactions.get(0).clientRequestToken()
+                .equals(transactions.get(1).clientRequestToken());
+
+        // A failed condition isn't, and the result says which item failed
+        dynamo.cancelTransactions(1, "ConditionalCheckFailed");
+        result = client.writeAtomically(root, TABLE).join();
+        assert !result.isCommitted();
+        assert result.getCommittedChunks() == 0;
+        assert result.getFailures().size() == 1;
+        assert result.getFailures().get(0).getCode().equals("ConditionalCheckFailed");
+    }
+
+    @Test
+    public void boundedWrites() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 2);
+        dynamo.holdBatchesUntilOverlapping(2);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .maxInFlightBatches(2)
+                .build();
+
+        List<TwoFieldMember> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            members.add(new TwoFieldMember("M" + i, i));
+        }
+        WriteResult result = client.writeAll(new NonDynamoRoot(members), "Table").join();
+
+        assert result.isComplete();
+        assert result.getResponses().size() == 5;
+        assert dynamo.getWrites().size() == 120;
+        assert dynamo.getMaxInFlight() == 2;
+    }
+
+    @Test
+    public void boundedDeletes() {
+        List<TwoFieldMember> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            members.add(new TwoFieldMember("M" + i, i));
+        }
+        DynamoRoot root = new DynamoRoot("C", members);
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(DomainTransformer.transform(root), 60);
+        dynamo.holdBatchesUntilOverlapping(2);
+        SquilliamAsyncClient client = SquilliamAsyncClient.builder()
+                .dynamoDbClient(new FakeDynamoDbAsyncClient(dynamo))
+                .itemAttrName("ItemType")
+                .maxInFlightBatches(2)
+                .build();
+
+        WriteResult result = client.deleteAll(root, "Table").join();
+
+        // 121 keys in pages of 60 are 3 batches, 3 batches and a last one
+        assert result.isComplete();
+        assert result.getResponses().size() == 7;
+        assert dynamo.getWrites().size() == 121;
+        assert dynamo.getMaxInFlight() == 2;
+    }
+}
@@ -0,0 +1,886 @@
+package snorelabs.squilliam;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.DomainTransformer;
+import snorelabs.squilliam.core.PartitionException;
+import snorelabs.squilliam.core.models.Certification;
+import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.Employee;
+import snorelabs.squilliam.core.models.Engineer;
+import snorelabs.squilliam.core.models.LazyRoot;
+import snorelabs.squilliam.core.models.Manager;
+import snorelabs.squilliam.core.models.Project;
+import snorelabs.squilliam.core.models.Shift;
+import snorelabs.squilliam.core.models.Squad;
+import snorelabs.squilliam.core.models.Team;
+import snorelabs.squilliam.core.models.TwoFieldMember;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SquilliamClientTest {
+    private static final String TABLE = "Table";
+
+    private static DynamoRoot root(int members) {
+        List<TwoFieldMember> twoFieldMembers = new ArrayList<>();
+        for (int i = 0; i < members; i++) {
+            twoFieldMembers.add(new TwoFieldMember("M" + i, i));
+        }
+        return new DynamoRoot("C", twoFieldMembers);
+    }
+
+    private static QueryRequest query() {
+        return QueryRequest.builder().tableName(TABLE).build();
+    }
+
+    @Test
+    public void loadFollowsPages() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(10));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .pageSize(3)
+                .build();
+
+        DynamoRoot loaded = client.load(query(), DynamoRoot.class);
+
+        // 11 items in pages of 3 means 4 queries, and nothing should be truncated
+        assert dynamo.getQueries().size() == 4;
+        assert loaded.getMembers().size() == 10;
+        assert loaded.getExample().equals("C");
+    }
+
+    @Test
+    public void queryFollowsPages() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(5).getMembers());
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 2);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        List<TwoFieldMember> members = client.query(query(), TwoFieldMember.class);
+
+        assert members.size() == 5;
+        assert dynamo.getQueries().size() == 3;
+    }
+
+    @Test
+    public void requestLimitCapsQuery() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(5).getMembers());
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .pageSize(2)
+                .build();
+
+        List<TwoFieldMember> members = client.query(query().toBuilder().limit(3).build(),
+                TwoFieldMember.class);
+
+        // A page of 2, then only the 1 item left of the limit
+        assert members.size() == 3;
+        assert dynamo.getQueries().size() == 2;
+        assert dynamo.getQueries().get(1).limit() == 1;
+    }
+
+    @Test
+    public void pageGuards() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(10));
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(new FakeDynamoDbClient(items, 2))
+                .itemAttrName("ItemType")
+                .maxPages(3)
+                .build();
+
+        try {
+            client.load(query(), DynamoRoot.class);
+            assert false;
+        } catch (PageLimitException e) {
+            assert e.getPages() == 3;
+        }
+
+        client = SquilliamClient.builder()
+                .dynamoDbClient(new FakeDynamoDbClient(items, 2))
+                .itemAttrName("ItemType")
+                .maxItems(5)
+                .build();
+
+        try {
+            client.load(query(), DynamoRoot.class);
+            assert false;
+        } catch (PageLimitException e) {
+            assert e.getItems() > 5;
+        }
+    }
+
+    @Test
+    public void concurrentWrites() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 100);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .maxInFlightBatches(2)
+                .build();
+        dynamo.holdBatchesUntilOverlapping(2);
+
+        // 120 members and the root make 121 items, which is 5 batches
+        WriteResult result = client.writeAll(root(120), TABLE);
+
+        assert result.isComplete();
+        assert result.getResponses().size() == 5;
+        assert dynamo.getBatchWrites() == 5;
+        assert dynamo.getWrites().size() == 121;
+        assert dynamo.getMaxInFlight() == 2;
+    }
+
+    @Test
+    public void retryUnprocessed() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 100);
+        dynamo.throttleWrites(30);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(5, Duration.ofMillis(1), Duration.ofMillis(10)))
+                .build();
+
+        WriteResult result = client.writeAll(root(49), TABLE);
+
+        // Everything makes it in eventually, it just takes more batches
+        assert result.isComplete();
+        assert dynamo.getWrites().size() == 50;
+        assert dynamo.getBatchWrites() > 2;
+    }
+
+    @Test
+    public void reportUnprocessed() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 100);
+        dynamo.throttleWrites(1000);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(10)))
+                .build();
+
+        WriteResult result = client.writeAll(root(9), TABLE);
+
+        // One batch of 10, tried three times before giving up on all of it
+        assert !result.isComplete();
+        assert result.getUnprocessed().size() == 10;
+        assert dynamo.getBatchWrites() == 3;
+    }
+
+    @Test
+    public void saveWritesOnlyChanges() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(10));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Tracked<DynamoRoot> tracked = client.loadTracked(query(), DynamoRoot.class);
+        List<TwoFieldMember> members = new ArrayList<>(tracked.getRoot().getMembers());
+        members.get(0).setVal2(100);
+        members.remove(members.size() - 1);
+        members.add(new TwoFieldMember("New", 1));
+        tracked.getRoot().setMembers(members);
+
+        WriteResult result = client.save(tracked, TABLE);
+
+        // One modified and one new member are put, the removed member is deleted, the rest of
+        // the aggregate isn't touched
+        assert result.isComplete();
+        List<WriteRequest> writes = dynamo.getWrites();
+        assert writes.size() == 3;
+        assert writes.stream().filter(write -> write.putRequest() != null).count() == 2;
+        assert writes.stream().filter(write -> write.deleteRequest() != null)
+                .anyMatch(write -> write.deleteRequest().key().get("Val1").s().equals("M9"));
+
+        // Nothing changed since the last save, so nothing is written
+        client.save(tracked, TABLE);
+        assert dynamo.getWrites().size() == 3;
+    }
+
+    @Test
+    public void saveIgnoresReadLazyMembers() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(DomainTransformer.transform(
+                new LazyRoot(List.of(new TwoFieldMember("A", 1), new TwoFieldMember("B", 2)))));
+        // An attribute the model doesn't map, which reading the member drops
+        Map<String, AttributeValue> legacy = new HashMap<>(items.get(0));
+        legacy.put("Legacy", AttributeValue.builder().s("kept").build());
+        items.set(0, legacy);
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Tracked<LazyRoot> tracked = client.loadTracked(query(), LazyRoot.class);
+        assert tracked.getRoot().getMembers().get(0).getVal1().equals("A");
+
+        // Reading a member isn't a change, in either mode
+        assert client.save(tracked, TABLE).isComplete();
+        assert client.save(tracked, TABLE, SaveMode.UPDATE).isComplete();
+        assert dynamo.getWrites().isEmpty();
+        assert dynamo.getUpdates().isEmpty();
+    }
+
+    @Test
+    public void saveUpdatesChangedAttributes() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(10));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Tracked<DynamoRoot> tracked = client.loadTracked(query(), DynamoRoot.class);
+        tracked.getRoot().getMembers().get(3).setVal2(100);
+
+        WriteResult result = client.save(tracked, TABLE, SaveMode.UPDATE);
+
+        // Only the changed attribute of the changed member goes over the wire
+        assert result.isComplete();
+        assert dynamo.getBatchWrites() == 0;
+        List<UpdateItemRequest> updates = dynamo.getUpdates();
+        assert updates.size() == 1;
+        UpdateItemRequest update = updates.get(0);
+        assert update.key().get("Val1").s().equals("M3");
+        assert update.updateExpression().equals("SET #a0 = :a0");
+        assert update.expressionAttributeNames().get("#a0").equals("Val2");
+        assert update.expressionAttributeValues().get(":a0").n().equals("100");
+    }
+
+    @Test
+    public void saveReportsFailedUpdates() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(10));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Tracked<DynamoRoot> tracked = client.loadTracked(query(), DynamoRoot.class);
+        tracked.getRoot().getMembers().get(3).setVal2(100);
+        tracked.getRoot().getMembers().get(4).setVal2(100);
+        tracked.getRoot().getMembers().add(new TwoFieldMember("M10", 10));
+        dynamo.failUpdates(1);
+
+        WriteResult result = client.save(tracked, TABLE, SaveMode.UPDATE);
+
+        // The rejected update is reported, the other update and the new item still went through
+        assert !result.isComplete();
+        assert result.getFailedUpdates().size() == 1;
+        assert result.getFailedUpdates().get(0).getCause()
+                instanceof ConditionalCheckFailedException;
+        assert result.getUpdates().size() == 1;
+        assert dynamo.getUpdates().size() == 1;
+        assert dynamo.getWrites().size() == 1;
+    }
+
+    @Test
+    public void atomicWritesChunkLargeAggregates() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        TransactionResult result = client.writeAtomically(root(150), TABLE,
+                TransactionOptions.versioned("Version", 3L));
+
+        // 151 puts and a version check on the root make two chunks, the check leading the first
+        // and the conditional root put closing the last
+        assert result.isCommitted();
+        List<TransactWriteItemsRequest> transactions = dynamo.getTransactions();
+        assert transactions.size() == 2;
+        List<TransactWriteItem> first = transactions.get(0).transactItems();
+        List<TransactWriteItem> last = transactions.get(1).transactItems();
+        assert first.size() == 100 && last.size() == 52;
+        assert first.get(0).conditionCheck().conditionExpression().equals("#v = :v");
+        assert last.get(last.size() - 1).put().item().get("Example").s().equals("C");
+        assert last.get(last.size() - 1).put().conditionExpression().equals("#v = :v");
+        assert !transactions.get(0).clientRequestToken()
+                .equals(transactions.get(1).clientRequestToken());
+    }
+
+    @Test
+    public void atomicWritesRetryConflictsAndReportFailures() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(List.of(), 100);
+        dynamo.cancelTransactions(1, "TransactionConflict");
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(10)))
+                .build();
+
+        // A conflict is retried with the same token, so it can't be applied twice
+        TransactionResult result = client.writeAtomically(root(5), TABLE);
+        assert result.isCommitted();
+        List<TransactWriteItemsRequest> transactions = dynamo.getTransactions();
+        assert transactions.size() == 2;
+        assert transactions.get(0).clientRequestToken()
+                .equals(transactions.get(1).clientRequestToken());
+
+        // A failed condition isn't, and the result says which item failed
+        dynamo.cancelTransactions(1, "ConditionalCheckFailed");
+        result = client.writeAtomically(root(5), TABLE);
+        assert !result.isCommitted();
+        assert result.getCommittedChunks() == 0;
+        assert result.getFailures().size() == 1;
+        assert result.getFailures().get(0).getCode().equals("ConditionalCheckFailed");
+        assert result.getFailures().get(0).getItem().put().item().get("Val1").s().equals("M0");
+    }
+
+    @Test
+    public void deleteAllStreamsKeys() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(60));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 20);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .maxPages(1)
+                .build();
+
+        WriteResult result = client.deleteAll(query());
+
+        // Every page is read keys only and turned into deletes, the page guards don't apply to
+        // deletes
+        assert result.isComplete();
+        assert dynamo.getQueries().size() == 4;
+        QueryRequest keysOnly = dynamo.getQueries().get(0);
+        assert keysOnly.projectionExpression().equals("#squilliamKey0");
+        assert keysOnly.expressionAttributeNames().get("#squilliamKey0").equals("Example");
+        assert dynamo.getWrites().size() == 61;
+        assert dynamo.getWrites().stream().allMatch(write -> write.deleteRequest() != null);
+
+        // The table's keys are only described once
+        client.deleteAll(query());
+        assert dynamo.getDescribes() == 1;
+
+        // A root deletes its own partition
+        dynamo = new FakeDynamoDbClient(items, 100);
+        client = new SquilliamClient(dynamo, "ItemType");
+        client.deleteAll(root(60), TABLE);
+        QueryRequest partition = dynamo.getQueries().get(0);
+        assert partition.expressionAttributeValues().get(":squilliamKey").s().equals("C");
+        assert dynamo.getWrites().size() == 61;
+        assert dynamo.getDescribes() == 0;
+    }
+
+    @Test
+    public void loadProjectsMappedAttributes() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(3));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        client.load(query(), DynamoRoot.class);
+
+        // The root's and the members' attributes along with the item type, nothing else
+        QueryRequest projected = dynamo.getQueries().get(0);
+        assert projected.projectionExpression() != null;
+        assert new HashSet<>(projected.expressionAttributeNames().values())
+                .equals(Set.of("ItemType", "Example", "Val1", "Val2"));
+
+        // A request which already says what to read is left alone
+        QueryRequest own = query().toBuilder().projectionExpression("Example").build();
+        client.load(own, DynamoRoot.class);
+        assert dynamo.getQueries().get(1).projectionExpression().equals("Example");
+    }
+
+    @Test
+    public void loadByKey() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(root(3));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        DynamoRoot loaded = client.load(DynamoRoot.class, TABLE, "C");
+
+        // The key condition comes from the root's partition key
+        assert loaded.getMembers().size() == 3;
+        QueryRequest request = dynamo.getQueries().get(0);
+        assert request.tableName().equals(TABLE);
+        assert request.keyConditionExpression().equals("#squilliamPk = :squilliamPk");
+        assert request.expressionAttributeNames().get("#squilliamPk").equals("Example");
+        assert request.expressionAttributeValues().get(":squilliamPk").s().equals("C");
+        assert request.projectionExpression() != null;
+
+        // The root has no sort key to match a prefix on
+        try {
+            client.load(DynamoRoot.class, TABLE, "C", "Member#");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("sort key");
+        }
+    }
+
+    @Test
+    public void loadOnlyRequestedRelations() {
+        Team team = new Team("T1",
+                List.of(new Employee("T1", "Bob"), new Employee("T1", "Carol")),
+                new Manager("T1", "Alice"));
+        FakeDynamoDbClient dynamo =
+                new FakeDynamoDbClient(DomainTransformer.transform(team), 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Team loaded = client.loadOnly(Team.class, TABLE, "T1", "employees");
+
+        // One query for the root and one for the employees, the manager is never read
+        assert dynamo.getQueries().size() == 2;
+        assert dynamo.getQueries().stream()
+                .map(query -> query.expressionAttributeValues().get(":squilliamSk").s())
+                .collect(Collectors.toSet())
+                .equals(Set.of(Team.ITEM_TYPE, Employee.SORT_KEY_PREFIX));
+        // The root's prefix is its bare item type, so each query keeps to its own item types
+        assert dynamo.getQueries().stream()
+                .map(query -> query.expressionAttributeValues().get(":squilliamType0").s())
+                .collect(Collectors.toSet())
+                .equals(Set.of(Team.ITEM_TYPE, Employee.ITEM_TYPE));
+        assert loaded.getTeamId().equals("T1");
+        assert loaded.getEmployees().size() == 2;
+        assert loaded.getManager() == null;
+
+        try {
+            client.loadOnly(Team.class, TABLE, "T1", "interns");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("interns");
+        }
+    }
+
+    @Test
+    public void loadOnlyResolvesReferences() {
+        Manager alice = new Manager("T1", "Alice");
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.addAll(DomainTransformer.transform(alice));
+        items.addAll(DomainTransformer.transform(new Project("P1", alice)));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Project loaded = client.loadOnly(Project.class, TABLE, "P1");
+
+        assert loaded.getManager().getSortKey().equals(alice.getSortKey());
+        assert dynamo.getBatchGets().size() == 1;
+    }
+
+    @Test
+    public void loadOnlyFollowsNestedPrefixes() {
+        Engineer bob = new Engineer("S", "Bob", List.of(new Certification("S", "Bob", "aws")),
+                List.of(new Shift("S", "mon", "Bob"), new Shift("S", "tue", "Bob")));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(
+                DomainTransformer.transform(new Squad("S", List.of(bob))), 100);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        Squad loaded = client.loadOnly(Squad.class, TABLE, "S", "engineers");
+
+        // Certifications sit under the engineers' prefix, shifts are linked by a parent key
+        // and live under their own
+        assert dynamo.getQueries().stream()
+                .map(query -> query.expressionAttributeValues().get(":squilliamSk").s())
+                .collect(Collectors.toSet())
+                .equals(Set.of(Squad.SORT_KEY_PREFIX, Engineer.SORT_KEY_PREFIX,
+                        Shift.SORT_KEY_PREFIX));
+        assert loaded.engineers.size() == 1;
+        assert loaded.engineers.get(0).certifications.size() == 1;
+        assert loaded.engineers.get(0).shifts.size() == 2;
+    }
+
+    @Test
+    public void loadAllKeepsOrderAndReportsFailures() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (String teamId : List.of("T1", "T2")) {
+            items.addAll(DomainTransformer.transform(new Team(teamId,
+                    List.of(new Employee(teamId, "Bob")), new Manager(teamId, "Alice"))));
+        }
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .maxConcurrentLoads(2)
+                .build();
+
+        List<LoadResult<Team>> results =
+                client.loadAll(List.of("T2", "T3", "T1"), Team.class, TABLE);
+
+        // Results line up with the keys, and the partition without a root fails on its own
+        assert results.size() == 3;
+        assert results.get(0).isLoaded();
+        assert results.get(0).getValue().getTeamId().equals("T2");
+        assert results.get(0).getValue().getEmployees().size() == 1;
+        assert !results.get(1).isLoaded();
+        assert results.get(1).getKey().equals("T3");
+        assert results.get(1).getError() instanceof PartitionException;
+        assert results.get(2).getValue().getTeamId().equals("T1");
+        assert dynamo.getQueries().size() == 3;
+
+        try {
+            SquilliamClient.builder().maxConcurrentLoads(0);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("loads");
+        }
+    }
+
+    @Test
+    public void loadAllResolvesReferencesInBatches() {
+        Manager alice = new Manager("T1", "Alice");
+        Manager bob = new Manager("T2", "Bob");
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.addAll(DomainTransformer.transform(alice));
+        items.addAll(DomainTransformer.transform(bob));
+        items.addAll(DomainTransformer.transform(new Project("P1", alice)));
+        items.addAll(DomainTransformer.transform(new Project("P2", alice)));
+        items.addAll(DomainTransformer.transform(new Project("P3", bob)));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        dynamo.throttleGets(1);
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .retryPolicy(new RetryPolicy(3, Duration.ZERO, Duration.ZERO))
+                .build();
+
+        List<LoadResult<Project>> results =
+                client.loadAll(List.of("P1", "P2", "P3"), Project.class, TABLE);
+
+        // The shared manager is read once, and the throttled key is read again on its own
+        List<BatchGetItemRequest> gets = dynamo.getBatchGets();
+        assert gets.size() == 2;
+        assert gets.get(0).requestItems().get(TABLE).keys().size() == 2;
+        assert gets.get(1).requestItems().get(TABLE).keys().size() == 1;
+        assert results.get(0).getValue().getManager().getSortKey().equals("MGR#Alice");
+        assert results.get(1).getValue().getManager().getSortKey().equals("MGR#Alice");
+        assert results.get(2).getValue().getManager().getSortKey().equals("MGR#Bob");
+
+        // References are never written as part of the aggregate
+        assert DomainTransformer.transform(results.get(0).getValue()).size() == 1;
+    }
+
+    @Test
+    public void scanGroupsSegmentsIntoAggregates() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (String teamId : List.of("T1", "T2", "T3")) {
+            items.addAll(DomainTransformer.transform(new Team(teamId,
+                    List.of(new Employee(teamId, "Bob"), new Employee(teamId, "Carol")),
+                    new Manager(teamId, "Alice"))));
+        }
+        // Pages of two items, so every team spans pages
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 2);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        List<Team> teams = new ArrayList<>();
+        client.scan(ScanRequest.builder().tableName(TABLE).build(), Team.class, 2, teams::add);
+
+        assert teams.size() == 3;
+        assert teams.stream().map(Team::getTeamId).collect(Collectors.toSet())
+                .equals(Set.of("T1", "T2", "T3"));
+        for (Team team : teams) {
+            assert team.getEmployees().size() == 2;
+            assert team.getManager().getTeamId().equals(team.getTeamId());
+        }
+        assert dynamo.getScans().stream()
+                .map(ScanRequest::segment)
+                .collect(Collectors.toSet())
+                .equals(Set.of(0, 1));
+        assert dynamo.getScans().stream().allMatch(scan -> scan.totalSegments() == 2);
+
+        // Closing the stream early stops the segments
+        try (Stream<Team> scanned = client.scan(
+                ScanRequest.builder().tableName(TABLE).build(), Team.class, 2)) {
+            assert scanned.findFirst().isPresent();
+        }
+    }
+
+    @Test
+    public void scanSkipsPartitionsOfOtherAggregates() {
+        Manager alice = new Manager("T2", "Alice");
+        List<Map<String, AttributeValue>> items = new ArrayList<>(DomainTransformer.transform(
+                new Team("T1", List.of(new Employee("T1", "Bob")), new Manager("T1", "Carol"))));
+        // A project's partition and a team partition holding only its manager, neither a Team
+        items.addAll(DomainTransformer.transform(new Project("P1", alice)));
+        items.addAll(DomainTransformer.transform(alice));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 2);
+        SquilliamClient client = new SquilliamClient(dynamo, "ItemType");
+
+        List<Team> teams = new ArrayList<>();
+        client.scan(ScanRequest.builder().tableName(TABLE).build(), Team.class, 2, teams::add);
+
+        assert teams.size() == 1;
+        assert teams.get(0).getTeamId().equals("T1");
+        assert teams.get(0).getEmployees().size() == 1;
+    }
+
+    @Test
+    public void cacheServesLoadsUntilWrittenOrExpired() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (String teamId : List.of("T1", "T2")) {
+            items.addAll(DomainTransformer.transform(new Team(teamId,
+                    List.of(new Employee(teamId, "Bob")), new Manager(teamId, "Alice"))));
+        }
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        Instant[] now = {Instant.EPOCH};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+        // Room for one team of three items at a time
+        AggregateCache cache = AggregateCache.builder()
+                .maxWeight(5)
+                .ttl(Duration.ofMinutes(1))
+                .clock(clock)
+                .build();
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .cache(cache)
+                .build();
+
+        Team first = client.load(Team.class, TABLE, "T1");
+        assert client.load(Team.class, TABLE, "T1") == first;
+        assert dynamo.getQueries().size() == 1;
+        assert cache.getWeight() == 3;
+
+        // Loading the other team evicts the first
+        client.load(Team.class, TABLE, "T2");
+        assert client.load(Team.class, TABLE, "T1") != first;
+        assert dynamo.getQueries().size() == 3;
+
+        // Writing the team drops it
+        client.writeAll(new Team("T1", List.of(), new Manager("T1", "Alice")), TABLE);
+        assert cache.size() == 0;
+        client.load(Team.class, TABLE, "T1");
+        assert dynamo.getQueries().size() == 4;
+
+        // And entries expire
+        now[0] = now[0].plus(Duration.ofMinutes(2));
+        client.load(Team.class, TABLE, "T1");
+        assert dynamo.getQueries().size() == 5;
+
+        CacheStats stats = cache.getStats();
+        assert stats.getHits() == 1;
+        assert stats.getMisses() == 5;
+        assert stats.getEvictions() == 3;
+        assert stats.getInvalidations() == 1;
+    }
+
+    @Test
+    public void cacheFollowsStreamRecords() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (String teamId : List.of("T1", "T2")) {
+            items.addAll(DomainTransformer.transform(new Team(teamId,
+                    List.of(new Employee(teamId, "Bob")), new Manager(teamId, "Alice"))));
+        }
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        AggregateCache cache = AggregateCache.builder().build();
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .cache(cache)
+                .build();
+        Team first = client.load(Team.class, TABLE, "T1");
+        client.load(Team.class, TABLE, "T2");
+
+        // A new employee of the first team lands in its cached aggregate only
+        Map<String, AttributeValue> newcomer =
+                DomainTransformer.transform(new Employee("T1", "Cy")).get(0);
+        cache.apply(TABLE, "ItemType", Record.builder()
+                .eventName(OperationType.INSERT)
+                .dynamodb(StreamRecord.builder()
+                        .keys(Map.of("Pk", newcomer.get("Pk"), "Sk", newcomer.get("Sk")))
+                        .newImage(newcomer)
+                        .build())
+                .build());
+        assert client.load(Team.class, TABLE, "T1").employees.size() == 2;
+        assert client.load(Team.class, TABLE, "T2").employees.size() == 1;
+        assert dynamo.getQueries().size() == 2;
+        // The patch went to a copy, the aggregate already handed out is left as it was
+        assert client.load(Team.class, TABLE, "T1") != first;
+        assert first.employees.size() == 1;
+        assert cache.getWeight() == 7;
+
+        // Removing the root item of the second team drops it
+        cache.apply(TABLE, "ItemType", Record.builder()
+                .eventName(OperationType.REMOVE)
+                .dynamodb(StreamRecord.builder()
+                        .keys(Map.of("Pk", AttributeValue.builder().s("T2").build(),
+                                "Sk", AttributeValue.builder().s(Team.ITEM_TYPE).build()))
+                        .build())
+                .build());
+        assert cache.size() == 1;
+        assert cache.getStats().getInvalidations() == 1;
+    }
+
+    @Test
+    public void cacheDropsPartialAggregatesOnStreamRecords() {
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(DomainTransformer.transform(new Team(
+                "T1", List.of(new Employee("T1", "Bob")), new Manager("T1", "Alice"))), 100);
+        AggregateCache cache = AggregateCache.builder().build();
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .cache(cache)
+                .build();
+        // Only the root item is read, the employees are left out
+        assert client.load(Team.class, TABLE, "T1", Team.ITEM_TYPE).employees == null;
+
+        // A new employee isn't something the query would return, so the entry can't be patched
+        Map<String, AttributeValue> newcomer =
+                DomainTransformer.transform(new Employee("T1", "Cy")).get(0);
+        cache.apply(TABLE, "ItemType", Record.builder()
+                .eventName(OperationType.INSERT)
+                .dynamodb(StreamRecord.builder()
+                        .keys(Map.of("Pk", newcomer.get("Pk"), "Sk", newcomer.get("Sk")))
+                        .newImage(newcomer)
+                        .build())
+                .build());
+        assert cache.size() == 0;
+        assert client.load(Team.class, TABLE, "T1", Team.ITEM_TYPE).employees == null;
+    }
+
+    @Test
+    public void cacheRefusesLoadsRacingAWrite() throws Exception {
+        Team team = new Team("T1", List.of(new Employee("T1", "Bob")), new Manager("T1", "Alice"));
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(DomainTransformer.transform(team), 100) {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queried.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.query(request);
+            }
+        };
+        AggregateCache cache = AggregateCache.builder().build();
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .cache(cache)
+                .build();
+
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            Future<Team> load = threads.submit(() -> client.load(Team.class, TABLE, "T1"));
+            // The team is written after the load missed but before its result is cached
+            queried.await();
+            client.writeAll(team, TABLE);
+            release.countDown();
+            load.get();
+        } finally {
+            threads.shutdown();
+        }
+
+        assert cache.size() == 0;
+        client.load(Team.class, TABLE, "T1");
+        assert cache.size() == 1;
+    }
+
+    @Test
+    public void cacheDropsAggregatesReferringToWrittenItems() {
+        Manager alice = new Manager("T1", "Alice");
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.addAll(DomainTransformer.transform(alice));
+        items.addAll(DomainTransformer.transform(new Project("P1", alice)));
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100);
+        AggregateCache cache = AggregateCache.builder().build();
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .cache(cache)
+                .build();
+        client.load(Project.class, TABLE, "P1");
+        assert cache.size() == 1;
+
+        // The manager lives in the team's partition, not the project's
+        client.writeAll(alice, TABLE);
+        assert cache.size() == 0;
+    }
+
+    @Test
+    public void concurrentLoadsShareOneQuery() throws Exception {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(new Team("T1",
+                List.of(new Employee("T1", "Bob")), new Manager("T1", "Alice")));
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FakeDynamoDbClient dynamo = new FakeDynamoDbClient(items, 100) {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queried.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.query(request);
+            }
+        };
+        SquilliamClient client = SquilliamClient.builder()
+                .dynamoDbClient(dynamo)
+                .itemAttrName("ItemType")
+                .loadSharing(LoadSharing.COPIED)
+                .build();
+
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Team>> loads = new ArrayList<>();
+            loads.add(threads.submit(() -> client.load(Team.class, TABLE, "T1")));
+            queried.await();
+            List<Thread> followers = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch started = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                loads.add(threads.submit(() -> {
+                    followers.add(Thread.currentThread());
+                    started.countDown();
+                    return client.load(Team.class, TABLE, "T1");
+                }));
+            }
+            // The leader is held until every follower is parked waiting for its flight
+            started.await();
+            while (!followers.stream().allMatch(t -> t.getState() == Thread.State.WAITING)) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Set<Team> teams = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<Team> load : loads) {
+                Team team = load.get();
+                assert team.getEmployees().size() == 1;
+                assert team.getManager().getSortKey().equals("MGR#Alice");
+                teams.add(team);
+            }
+            assert dynamo.getQueries().size() == 1;
+            // Every caller got its own copy
+            assert teams.size() == 4;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package snorelabs.squilliam.core;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.LazyRoot;
+import snorelabs.squilliam.core.models.NonDynamoRoot;
+import snorelabs.squilliam.core.models.TwoFieldMember;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class AggregateMapperTest {
+    @Test
+    public void generatedMappers() {
+        // The test models are compiled with the mapper processor, DynamoRoot gets a mapper while
+        // NonDynamoRoot has a private field without a setter and is left to the reflective path.
+        assert AggregateMappers.find(DynamoRoot.class).isPresent();
+        assert AggregateMappers.find(NonDynamoRoot.class).isEmpty();
+    }
+
+    @Test
+    public void generatedRoundTrip() {
+        TwoFieldMember member1 = new TwoFieldMember("A", 1);
+        TwoFieldMember member2 = new TwoFieldMember("B", 2);
+        DynamoRoot expectedRoot = new DynamoRoot("C", List.of(member1, member2));
+
+        Optional<AggregateMapper<DynamoRoot>> mapper = AggregateMappers.find(DynamoRoot.class);
+        assert mapper.isPresent();
+
+        List<Map<String, AttributeValue>> items = mapper.get().toItems(expectedRoot);
+
+        // The generated mapper should produce exactly what the reflective transformer does
+        assert items.equals(DomainTransformer.transform(expectedRoot));
+
+        Partition partition = PartitionAggregator.aggregate("ItemType", items);
+        DynamoRoot retrieved = mapper.get().fromPartition(partition);
+
+        assert retrieved.getExample().equals(expectedRoot.getExample());
+        assert retrieved.getMembers().size() == expectedRoot.getMembers().size();
+    }
+
+    @Test
+    public void generatedItemsAreLazy() {
+        DomainTransformerTest.CountingList<TwoFieldMember> members =
+                new DomainTransformerTest.CountingList<>(List.of(
+                        new TwoFieldMember("A", 1), new TwoFieldMember("B", 2)));
+        AggregateMapper<DynamoRoot> mapper = AggregateMappers.find(DynamoRoot.class).get();
+
+        Iterator<Map<String, AttributeValue>> items = mapper.items(new DynamoRoot("C", members));
+
+        assert members.reads == 0;
+        items.next();
+        assert members.reads == 1;
+    }
+
+    @Test
+    public void generatedAccumulator() {
+        DynamoRoot expectedRoot = new DynamoRoot("C",
+                List.of(new TwoFieldMember("A", 1), new TwoFieldMember("B", 2)));
+        List<Map<String, AttributeValue>> items =
+                new ArrayList<>(DomainTransformer.transform(expectedRoot));
+        // The root item comes last out of the transformer, put it first to show order is free
+        Collections.reverse(items);
+
+        AggregateMapper<DynamoRoot> mapper = AggregateMappers.find(DynamoRoot.class).get();
+        AggregateMapper.Accumulator<DynamoRoot> accumulator = mapper.accumulator();
+        for (Map<String, AttributeValue> item : items) {
+            accumulator.acceptAll("ItemType", List.of(item));
+        }
+        DynamoRoot retrieved = accumulator.build();
+
+        assert retrieved.getExample().equals("C");
+        assert retrieved.getMembers().size() == 2;
+        assert retrieved.getMembers().get(0).getVal1().equals("B");
+
+        AggregateMapper.Accumulator<DynamoRoot> rootless = mapper.accumulator();
+        rootless.acceptAll("ItemType", items.subList(1, items.size()));
+        try {
+            rootless.build();
+            assert false;
+        } catch (PartitionException e) {
+            assert e.getMessage().contains("root");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void generatedLazyRelation() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(new LazyRoot(
+                List.of(new TwoFieldMember("A", 1), new TwoFieldMember("B", 2))));
+        AggregateMapper<LazyRoot> mapper = AggregateMappers.find(LazyRoot.class).get();
+
+        AggregateMapper.Accumulator<LazyRoot> accumulator = mapper.accumulator();
+        accumulator.acceptAll("ItemType", items);
+        LazyRoot retrieved = accumulator.build();
+
+        assert retrieved.getMembers() instanceof LazyList<?>;
+        LazyList<TwoFieldMember> lazy = (LazyList<TwoFieldMember>) retrieved.getMembers();
+        assert lazy.size() == 2;
+        assert !lazy.isConverted(0) && !lazy.isConverted(1);
+
+        // Unread members are written from the items they were loaded from, without converting
+        List<Map<String, AttributeValue>> written = mapper.toItems(retrieved);
+        assert written.equals(items);
+        assert !lazy.isConverted(0);
+        assert lazy.get(1).getVal1().equals("B");
+    }
+}
@@ -7,8 +7,12 @@ import snorelabs.squilliam.core.models.NonDynamoRoot;
 import snorelabs.squilliam.core.models.TwoFieldMember;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 public class DomainTransformerTest {
     @Test
@@ -64,4 +68,64 @@ public class DomainTransformerTest {
                 .anyMatch(m -> Integer.parseInt(m.get("Val2").n()) == members.get(1).getVal2());
 
     }
+
+    @Test
+    public void testLazyIteration() {
+        List<TwoFieldMember> members = List.of(
+                new TwoFieldMember("A", 1),
+                new TwoFieldMember("B", 2)
+        );
+        DynamoRoot dynamoRoot = new DynamoRoot("C", members);
+
+        // Iterating should produce the same items as the eager transform, root last
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Iterator<Map<String, AttributeValue>> iterator = DomainTransformer.iterator(dynamoRoot);
+        iterator.forEachRemaining(items::add);
+        assert items.equals(DomainTransformer.transform(dynamoRoot));
+        assert items.get(items.size() - 1).get("ItemType").s().equals(DynamoRoot.ITEM_TYPE);
+        assert !iterator.hasNext();
+
+        assert !DomainTransformer.iterator(new Blank()).hasNext();
+    }
+
+    @Test
+    public void testIterationPullsMembersOneByOne() {
+        CountingList<TwoFieldMember> members = new CountingList<>(List.of(
+                new TwoFieldMember("A", 1),
+                new TwoFieldMember("B", 2),
+                new TwoFieldMember("C", 3)
+        ));
+        Iterator<Map<String, AttributeValue>> iterator =
+                DomainTransformer.iterator(new DynamoRoot("D", members));
+
+        // Nothing is read until items are asked for, then one member per item
+        assert members.reads == 0;
+        assert iterator.next().get("Val1").s().equals("A");
+        assert members.reads == 1;
+        assert iterator.next().get("Val1").s().equals("B");
+        assert members.reads == 2;
+    }
+
+    /**
+     * A relation list counting the members read out of it.
+     */
+    public static class CountingList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> members;
+        public int reads;
+
+        public CountingList(List<T> members) {
+            this.members = members;
+        }
+
+        @Override
+        public T get(int index) {
+            reads++;
+            return members.get(index);
+        }
+
+        @Override
+        public int size() {
+            return members.size();
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package snorelabs.squilliam.core;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.models.Certification;
+import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.Engineer;
+import snorelabs.squilliam.core.models.LazyRoot;
+import snorelabs.squilliam.core.models.Shift;
+import snorelabs.squilliam.core.models.Squad;
+import snorelabs.squilliam.core.models.NonDynamoRoot;
+import snorelabs.squilliam.core.models.TwoFieldMember;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class PartitionAccumulatorTest {
+    @Test
+    public void accumulateItems() {
+        TwoFieldMember member1 = new TwoFieldMember("A", 1);
+        TwoFieldMember member2 = new TwoFieldMember("B", 2);
+        DynamoRoot expectedRoot = new DynamoRoot("C", List.of(member1, member2));
+
+        // Put the root first so we know the order items arrive in doesn't matter
+        List<Map<String, AttributeValue>> items = new ArrayList<>(
+                DomainTransformer.transform(expectedRoot));
+        Collections.reverse(items);
+
+        PartitionAccumulator<DynamoRoot> accumulator = new PartitionAccumulator<>("ItemType",
+                TargetDescriber.describe(DynamoRoot.class));
+        for (Map<String, AttributeValue> item : items) {
+            accumulator.accept(item);
+        }
+        DynamoRoot retrieved = accumulator.build();
+
+        assert accumulator.getAccepted() == 3;
+        assert retrieved.getExample().equals(expectedRoot.getExample());
+        assert retrieved.getMembers().size() == 2;
+        assert retrieved.getMembers().stream().anyMatch(m -> m.getVal1().equals("A"));
+    }
+
+    @Test
+    public void accumulatePages() {
+        List<TwoFieldMember> members = List.of(
+                new TwoFieldMember("A", 1),
+                new TwoFieldMember("B", 2),
+                new TwoFieldMember("C", 3)
+        );
+        List<Map<String, AttributeValue>> items =
+                DomainTransformer.transform(new NonDynamoRoot(members));
+
+        PartitionAccumulator<NonDynamoRoot> accumulator = new PartitionAccumulator<>("ItemType",
+                TargetDescriber.describe(NonDynamoRoot.class));
+        accumulator.acceptAll(items.subList(0, 2));
+        accumulator.acceptAll(items.subList(2, 3));
+        // Items the target has no place for are dropped
+        accumulator.accept(Map.of("ItemType", AttributeValue.builder().s("Unknown").build()));
+
+        NonDynamoRoot retrieved = accumulator.build();
+
+        assert accumulator.getAccepted() == 3;
+        assert retrieved.getMembers().size() == 3;
+    }
+
+    @Test
+    public void missingRoot() {
+        PartitionAccumulator<DynamoRoot> accumulator = new PartitionAccumulator<>("ItemType",
+                TargetDescriber.describe(DynamoRoot.class));
+        accumulator.acceptAll(DomainTransformer.transform(List.of(new TwoFieldMember("A", 1))));
+
+        try {
+            accumulator.build();
+            assert false;
+        } catch (PartitionException e) {
+            assert e.getMessage().equals("Missing required root item");
+        }
+    }
+
+    @Test
+    public void accumulateNestedRelations() {
+        Engineer bob = new Engineer("S", "Bob", List.of(new Certification("S", "Bob", "aws")),
+                List.of(new Shift("S", "mon", "Bob"), new Shift("S", "tue", "Bob")));
+        Engineer al = new Engineer("S", "Al", List.of(new Certification("S", "Al", "gcp")),
+                List.of());
+        List<Map<String, AttributeValue>> items = new ArrayList<>(
+                DomainTransformer.transform(new Squad("S", List.of(bob, al))));
+        // Nested items arriving before the engineers they belong to still find them
+        Collections.reverse(items);
+
+        PartitionAccumulator<Squad> accumulator = new PartitionAccumulator<>("ItemType",
+                TargetDescriber.describe(Squad.class));
+        accumulator.acceptAll(items);
+        Squad retrieved = accumulator.build();
+
+        assert accumulator.getAccepted() == 7;
+        assert retrieved.engineers.size() == 2;
+        for (Engineer engineer : retrieved.engineers) {
+            assert engineer.certifications.size() == 1;
+            assert engineer.certifications.get(0).getSortKey()
+                    .startsWith(engineer.getSortKey() + "#");
+        }
+        assert retrieved.engineers.stream().mapToInt(e -> e.shifts == null ? 0 : e.shifts.size())
+                .sum() == 2;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void accumulateLazyRelation() {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(new LazyRoot(
+                List.of(new TwoFieldMember("A", 1), new TwoFieldMember("B", 2))));
+
+        PartitionAccumulator<LazyRoot> accumulator = new PartitionAccumulator<>("ItemType",
+                TargetDescriber.describe(LazyRoot.class));
+        accumulator.acceptAll(items.subList(0, 1));
+        accumulator.acceptAll(items.subList(1, 2));
+        LazyRoot retrieved = accumulator.build();
+
+        // The items are held as they arrived and nothing is converted until it is read
+        assert accumulator.getAccepted() == 2;
+        assert retrieved.getMembers() instanceof LazyList<?>;
+        LazyList<TwoFieldMember> lazy = (LazyList<TwoFieldMember>) retrieved.getMembers();
+        assert lazy.size() == 2;
+        assert !lazy.isConverted(0) && !lazy.isConverted(1);
+        assert lazy.get(1).getVal1().equals("B");
+        assert !lazy.isConverted(0);
+    }
+}
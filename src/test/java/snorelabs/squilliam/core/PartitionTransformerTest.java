@@ -2,7 +2,12 @@ package snorelabs.squilliam.core;
 
 import org.junit.jupiter.api.Test;
 import snorelabs.squilliam.core.models.Blank;
+import snorelabs.squilliam.core.models.Certification;
 import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.Engineer;
+import snorelabs.squilliam.core.models.LazyRoot;
+import snorelabs.squilliam.core.models.Shift;
+import snorelabs.squilliam.core.models.Squad;
 import snorelabs.squilliam.core.models.TwoFieldMember;
 import snorelabs.squilliam.core.models.NonDynamoRoot;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
@@ -70,4 +75,74 @@ public class PartitionTransformerTest {
         assert retrieved.members.size() == expectedRoot.getMembers().size();
 
     }
+
+    @Test
+    public void nestedRelations() {
+        // Bo's sort key is a prefix of Bob's, so certifications have to go to the longest match
+        Engineer bob = new Engineer("S", "Bob",
+                List.of(new Certification("S", "Bob", "aws"), new Certification("S", "Bob", "gcp")),
+                List.of(new Shift("S", "mon", "Bob")));
+        Engineer bo = new Engineer("S", "Bo",
+                List.of(new Certification("S", "Bo", "k8s")),
+                List.of(new Shift("S", "mon", "Bo"), new Shift("S", "tue", "Bo")));
+        List<Map<String, AttributeValue>> items =
+                DomainTransformer.transform(new Squad("S", List.of(bob, bo)));
+
+        // Shifts are written pointing back at their engineer
+        assert items.size() == 9;
+        assert items.stream()
+                .filter(item -> item.get("ItemType").s().equals(Shift.ITEM_TYPE))
+                .allMatch(item -> item.get("EngineerSk").s().startsWith(Engineer.SORT_KEY_PREFIX));
+
+        Partition partition = PartitionAggregator.aggregate("ItemType", items);
+        Squad squad = PartitionTransformer.transform(partition,
+                TargetDescriber.describe(Squad.class));
+
+        assert squad.engineers.size() == 2;
+        Engineer retrievedBob = squad.engineers.stream()
+                .filter(e -> e.getSortKey().equals("ENG#Bob")).findFirst().orElseThrow();
+        Engineer retrievedBo = squad.engineers.stream()
+                .filter(e -> e.getSortKey().equals("ENG#Bo")).findFirst().orElseThrow();
+        assert retrievedBob.certifications.size() == 2;
+        assert retrievedBob.shifts.size() == 1;
+        assert retrievedBo.certifications.size() == 1;
+        assert retrievedBo.certifications.get(0).getSortKey().equals("ENG#Bo#CERT#k8s");
+        assert retrievedBo.shifts.size() == 2;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void lazyRelation() {
+        List<TwoFieldMember> members = List.of(
+                new TwoFieldMember("A", 1),
+                new TwoFieldMember("B", 2),
+                new TwoFieldMember("C", 3)
+        );
+        List<Map<String, AttributeValue>> items =
+                DomainTransformer.transform(new LazyRoot(members));
+        Partition partition = PartitionAggregator.aggregate("ItemType", items);
+
+        LazyRoot root = PartitionTransformer.transform(partition,
+                TargetDescriber.describe(LazyRoot.class));
+
+        assert root.getMembers() instanceof LazyList<?>;
+        LazyList<TwoFieldMember> lazy = (LazyList<TwoFieldMember>) root.getMembers();
+        assert lazy.size() == 3;
+        assert !lazy.isConverted(0) && !lazy.isConverted(1);
+
+        // Reading an element converts only that one, and keeps the instance
+        assert lazy.get(1).getVal1().equals("B");
+        assert lazy.get(1) == lazy.get(1);
+        assert !lazy.isConverted(0) && lazy.isConverted(1) && !lazy.isConverted(2);
+
+        // Untouched elements are written in the same form as read ones, without being converted
+        List<Map<String, AttributeValue>> written = DomainTransformer.transform(root);
+        assert written.equals(items);
+        assert !lazy.isConverted(0);
+
+        // Modifying the list converts the rest
+        lazy.add(new TwoFieldMember("D", 4));
+        assert lazy.size() == 4 && lazy.isConverted(0);
+        assert DomainTransformer.transform(root).size() == 4;
+    }
 }
@@ -0,0 +1,44 @@
+package snorelabs.squilliam.core;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.TwoFieldMember;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+public class SchemaRegistryTest {
+    @Test
+    public void cachesSchemas() {
+        SchemaRegistry registry = new SchemaRegistry(SchemaRegistry.DEFAULT_CAPACITY);
+
+        TableSchema<TwoFieldMember> first = registry.schema(TwoFieldMember.class);
+        TableSchema<TwoFieldMember> second = registry.schema(TwoFieldMember.class);
+
+        // The second lookup should be served from the registry rather than introspected again
+        assert first == second;
+        assert registry.getMisses() == 1;
+        assert registry.getHits() == 1;
+    }
+
+    @Test
+    public void eagerRegistration() {
+        SchemaRegistry registry = new SchemaRegistry(SchemaRegistry.DEFAULT_CAPACITY);
+        registry.register(TwoFieldMember.class, DynamoRoot.class);
+
+        assert registry.size() == 2;
+        assert registry.getMisses() == 2;
+
+        registry.schema(DynamoRoot.class);
+        assert registry.getHits() == 1;
+    }
+
+    @Test
+    public void boundedCapacity() {
+        SchemaRegistry registry = new SchemaRegistry(1);
+        registry.register(TwoFieldMember.class, DynamoRoot.class);
+
+        // Only the most recent schema fits in a registry of one
+        assert registry.size() == 1;
+        registry.schema(DynamoRoot.class);
+        assert registry.getHits() == 1;
+    }
+}
@@ -0,0 +1,55 @@
+package snorelabs.squilliam.core;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.models.Blank;
+import snorelabs.squilliam.core.models.NonDynamoRoot;
+import snorelabs.squilliam.core.models.TwoFieldMember;
+import snorelabs.squilliam.core.models.Unbuildable;
+
+import java.util.List;
+
+public class ShenanigansTest {
+    @Test
+    public void privateFieldAccess() throws NoSuchFieldException {
+        // NonDynamoRoot keeps its members private with no setter, the accessor should still be
+        // able to get and set it.
+        FieldAccessor accessor =
+                Shenanigans.accessor(NonDynamoRoot.class.getDeclaredField("members"));
+        NonDynamoRoot root = new NonDynamoRoot();
+        List<TwoFieldMember> members = List.of(new TwoFieldMember("A", 1));
+
+        accessor.set(root, members);
+
+        assert root.getMembers() == members;
+        assert accessor.get(root) == members;
+    }
+
+    @Test
+    public void defaultConstructor() {
+        Blank blank = Shenanigans.instantiator(Blank.class).newInstance();
+        assert blank.getVal().equals(Blank.STATIC_VAL);
+    }
+
+    @Test
+    public void missingDefaultConstructor() {
+        // Resolving the constructor is lenient, only creating an instance should fail
+        Instantiator<Integer> instantiator = Shenanigans.instantiator(Integer.class);
+        try {
+            instantiator.newInstance();
+            assert false;
+        } catch (ModelException e) {
+            assert e.getInstanceClass() == Integer.class;
+        }
+    }
+
+    @Test
+    public void constructorExceptionsPassThrough() {
+        // Only checked throwables are wrapped, the constructor's own exception reaches the caller
+        try {
+            Shenanigans.instantiator(Unbuildable.class).newInstance();
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().equals("Not today");
+        }
+    }
+}
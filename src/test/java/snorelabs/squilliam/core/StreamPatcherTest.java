@@ -0,0 +1,123 @@
+package snorelabs.squilliam.core;
+
+import org.junit.jupiter.api.Test;
+import snorelabs.squilliam.core.models.Certification;
+import snorelabs.squilliam.core.models.Employee;
+import snorelabs.squilliam.core.models.Engineer;
+import snorelabs.squilliam.core.models.Manager;
+import snorelabs.squilliam.core.models.Shift;
+import snorelabs.squilliam.core.models.Squad;
+import snorelabs.squilliam.core.models.Team;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StreamPatcherTest {
+    @Test
+    public void patchRelationsOfTheRoot() {
+        Team team = load(new Team("T", List.of(new Employee("T", "Bob"), new Employee("T", "Al")),
+                new Manager("T", "Alice")), Team.class);
+        StreamPatcher<Team> patcher = new StreamPatcher<>("ItemType",
+                TargetDescriber.describe(Team.class));
+        Employee bob = team.employees.stream()
+                .filter(e -> e.getSortKey().equals("EMP#Bob")).findFirst().orElseThrow();
+
+        // Appended, replaced by key, and removed
+        team = patcher.apply(team, record(OperationType.INSERT, item(new Employee("T", "Cy"))));
+        assert team.employees.size() == 3;
+        team = patcher.apply(team, record(OperationType.MODIFY, item(new Employee("T", "Bob"))));
+        assert team.employees.size() == 3;
+        assert team.employees.stream().noneMatch(e -> e == bob);
+        team = patcher.apply(team, record(OperationType.REMOVE, item(new Employee("T", "Al"))));
+        assert team.employees.size() == 2;
+        team = patcher.apply(team, record(OperationType.MODIFY, item(new Manager("T", "Eve"))));
+        assert team.manager.getSortKey().endsWith("Eve");
+
+        // A new root item keeps the relations of the old one
+        Team previous = team;
+        team = patcher.apply(team, record(OperationType.MODIFY, item(new Team("T", null, null))));
+        assert team != previous;
+        assert team.employees.size() == 2 && team.manager == previous.manager;
+
+        // Without an image removals go by key
+        Record keysOnly = Record.builder()
+                .eventName(OperationType.REMOVE)
+                .dynamodb(StreamRecord.builder().keys(key(item(new Employee("T", "Cy")))).build())
+                .build();
+        team = patcher.apply(team, keysOnly);
+        assert team.employees.size() == 1;
+
+        // Items the aggregate has no place for are ignored, and removing the root removes it
+        Map<String, AttributeValue> unknown = new HashMap<>(item(new Employee("T", "Dan")));
+        unknown.put("ItemType", AttributeValue.builder().s("Unknown").build());
+        assert patcher.apply(team, record(OperationType.INSERT, unknown)).employees.size() == 1;
+        assert patcher.apply(team, record(OperationType.REMOVE, item(team))) == null;
+    }
+
+    @Test
+    public void patchNestedRelations() {
+        Squad squad = load(new Squad("S", List.of(
+                new Engineer("S", "Bob", List.of(new Certification("S", "Bob", "aws")), List.of()),
+                new Engineer("S", "Bo", List.of(), List.of()))), Squad.class);
+        StreamPatcher<Squad> patcher = new StreamPatcher<>("ItemType",
+                TargetDescriber.describe(Squad.class));
+
+        // Linked by sort key prefix, to the longest match
+        squad = patcher.apply(squad, record(OperationType.INSERT,
+                item(new Certification("S", "Bob", "gcp"))));
+        assert engineer(squad, "Bob").certifications.size() == 2;
+        assert engineer(squad, "Bo").certifications == null
+                || engineer(squad, "Bo").certifications.isEmpty();
+
+        // Linked by parent key
+        Map<String, AttributeValue> shift = new HashMap<>(item(new Shift("S", "mon", "Bo")));
+        shift.put("EngineerSk", AttributeValue.builder().s("ENG#Bo").build());
+        squad = patcher.apply(squad, record(OperationType.INSERT, shift));
+        assert engineer(squad, "Bo").shifts.size() == 1;
+
+        // A replaced engineer keeps its certifications
+        squad = patcher.apply(squad, record(OperationType.MODIFY,
+                item(new Engineer("S", "Bob", null, null))));
+        assert engineer(squad, "Bob").certifications.size() == 2;
+    }
+
+    private static <T> T load(T root, Class<T> model) {
+        Partition partition = PartitionAggregator.aggregate("ItemType",
+                DomainTransformer.transform(root));
+        return PartitionTransformer.transform(partition, TargetDescriber.describe(model));
+    }
+
+    private static Engineer engineer(Squad squad, String name) {
+        return squad.engineers.stream()
+                .filter(e -> e.getSortKey().equals(Engineer.SORT_KEY_PREFIX + name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * The item of the model itself, which comes after those of its relations.
+     */
+    private static Map<String, AttributeValue> item(Object model) {
+        List<Map<String, AttributeValue>> items = DomainTransformer.transform(model);
+        return items.get(items.size() - 1);
+    }
+
+    private static Map<String, AttributeValue> key(Map<String, AttributeValue> item) {
+        return Map.of("Pk", item.get("Pk"), "Sk", item.get("Sk"));
+    }
+
+    private static Record record(OperationType type, Map<String, AttributeValue> item) {
+        StreamRecord.Builder change = StreamRecord.builder().keys(key(item));
+        if (type == OperationType.REMOVE) {
+            change.oldImage(item);
+        } else {
+            change.newImage(item);
+        }
+        return Record.builder().eventName(type).dynamodb(change.build()).build();
+    }
+}
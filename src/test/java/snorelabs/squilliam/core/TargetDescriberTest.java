@@ -3,9 +3,14 @@ package snorelabs.squilliam.core;
 import org.junit.jupiter.api.Test;
 import snorelabs.squilliam.core.models.Blank;
 import snorelabs.squilliam.core.models.DynamoRoot;
+import snorelabs.squilliam.core.models.LazyMemberRoot;
+import snorelabs.squilliam.core.models.LazySquad;
 import snorelabs.squilliam.core.models.NonDynamoRoot;
+import snorelabs.squilliam.core.models.Portfolio;
 import snorelabs.squilliam.core.models.TwoFieldMember;
 
+import java.util.List;
+
 public class TargetDescriberTest {
     @Test
     public void testDescriptions() {
@@ -25,4 +30,48 @@ public class TargetDescriberTest {
         assert dynamoTarget.getRelations().containsKey(TwoFieldMember.ITEM_TYPE);
         assert dynamoTarget.getRelations().keySet().size() == 1;
     }
+
+    @Test
+    public void testCompiledDescriptions() {
+        TransformTarget<DynamoRoot> dynamoTarget = TargetDescriber.describe(DynamoRoot.class);
+
+        // Descriptions are compiled once and reused
+        assert TargetDescriber.describe(DynamoRoot.class) == dynamoTarget;
+
+        assert dynamoTarget.isInDynamo();
+        assert dynamoTarget.getItemType().equals(DynamoRoot.ITEM_TYPE);
+
+        Relation members = dynamoTarget.getRelations().get(TwoFieldMember.ITEM_TYPE);
+        assert members.isMany();
+        assert members.getModel() == TwoFieldMember.class;
+        assert members.getItemType().equals(TwoFieldMember.ITEM_TYPE);
+
+        TransformTarget<Blank> blankTarget = TargetDescriber.describe(Blank.class);
+        assert !blankTarget.isInDynamo();
+        assert blankTarget.getItemType() == null;
+    }
+
+    @Test
+    public void testMemberReferencesRejected() {
+        // Projects refer to their manager by key, which is only resolved on a root
+        try {
+            TargetDescriber.describe(Portfolio.class);
+            assert false;
+        } catch (ModelException e) {
+            assert e.getMessage().contains("root");
+        }
+    }
+
+    @Test
+    public void testNestedLazyRelationsRejected() {
+        // Engineers have relations of their own, and the lazy members aren't on the root
+        for (Class<?> model : List.of(LazySquad.class, LazyMemberRoot.class)) {
+            try {
+                TargetDescriber.describe(model);
+                assert false;
+            } catch (ModelException e) {
+                assert e.getMessage().contains("lazy");
+            }
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+@DynamoDbBean
+public class Certification {
+    public static final String ITEM_TYPE = "Certification";
+    public static final String SORT_KEY_PREFIX = "ENG#";
+    private String squadId;
+    private String sortKey;
+    @ItemType(value = Certification.ITEM_TYPE, sortKeyPrefix = Certification.SORT_KEY_PREFIX)
+    private String itemType;
+
+    public Certification() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Certification(String squadId, String engineer, String name) {
+        this.squadId = squadId;
+        this.sortKey = Engineer.SORT_KEY_PREFIX + engineer + "#CERT#" + name;
+        this.itemType = ITEM_TYPE;
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getSquadId() {
+        return squadId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setSquadId(String squadId) {
+        this.squadId = squadId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+}
@@ -0,0 +1,56 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+@DynamoDbBean
+public class Employee {
+    public static final String ITEM_TYPE = "Employee";
+    public static final String SORT_KEY_PREFIX = "EMP#";
+    private String teamId;
+    private String sortKey;
+    @ItemType(value = Employee.ITEM_TYPE, sortKeyPrefix = Employee.SORT_KEY_PREFIX)
+    private String itemType;
+
+    public Employee() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Employee(String teamId, String name) {
+        this.teamId = teamId;
+        this.sortKey = SORT_KEY_PREFIX + name;
+        this.itemType = ITEM_TYPE;
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getTeamId() {
+        return teamId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setTeamId(String teamId) {
+        this.teamId = teamId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+}
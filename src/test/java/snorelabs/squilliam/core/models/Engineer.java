@@ -0,0 +1,68 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.util.List;
+
+@DynamoDbBean
+public class Engineer {
+    public static final String ITEM_TYPE = "Engineer";
+    public static final String SORT_KEY_PREFIX = "ENG#";
+    // Sort keys of certifications begin with the sort key of their engineer
+    @HasMany
+    public List<Certification> certifications;
+    // Shifts are laid out by day, and point back at their engineer
+    @HasMany(parentKey = "EngineerSk")
+    public List<Shift> shifts;
+    private String squadId;
+    private String sortKey;
+    @ItemType(value = Engineer.ITEM_TYPE, sortKeyPrefix = Engineer.SORT_KEY_PREFIX)
+    private String itemType;
+
+    public Engineer() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Engineer(String squadId, String name, List<Certification> certifications,
+                    List<Shift> shifts) {
+        this.squadId = squadId;
+        this.sortKey = SORT_KEY_PREFIX + name;
+        this.certifications = certifications;
+        this.shifts = shifts;
+        this.itemType = ITEM_TYPE;
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getSquadId() {
+        return squadId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setSquadId(String squadId) {
+        this.squadId = squadId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+}
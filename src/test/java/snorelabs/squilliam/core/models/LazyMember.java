@@ -0,0 +1,25 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+import snorelabs.squilliam.core.annotations.ItemType;
+
+import java.util.List;
+
+/**
+ * A related model with a lazy relation of its own, which only roots may have.
+ */
+public class LazyMember {
+    public static final String ITEM_TYPE = "LazyMember";
+    @HasMany(lazy = true)
+    private List<TwoFieldMember> members;
+    @ItemType(LazyMember.ITEM_TYPE)
+    private String itemType;
+
+    public LazyMember() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public List<TwoFieldMember> getMembers() {
+        return members;
+    }
+}
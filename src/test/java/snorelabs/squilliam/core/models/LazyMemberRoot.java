@@ -0,0 +1,19 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+
+import java.util.List;
+
+/**
+ * A root whose related models have lazy relations.
+ */
+public class LazyMemberRoot {
+    @HasMany
+    private List<LazyMember> lazyMembers;
+
+    public LazyMemberRoot() {}
+
+    public List<LazyMember> getLazyMembers() {
+        return lazyMembers;
+    }
+}
@@ -0,0 +1,24 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+
+import java.util.List;
+
+public class LazyRoot {
+    @HasMany(lazy = true)
+    private List<TwoFieldMember> members;
+
+    public LazyRoot() {}
+
+    public LazyRoot(List<TwoFieldMember> members) {
+        this.members = members;
+    }
+
+    public List<TwoFieldMember> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<TwoFieldMember> members) {
+        this.members = members;
+    }
+}
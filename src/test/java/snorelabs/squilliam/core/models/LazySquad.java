@@ -0,0 +1,19 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+
+import java.util.List;
+
+/**
+ * A root asking for engineers, which have relations of their own, to be loaded lazily.
+ */
+public class LazySquad {
+    @HasMany(lazy = true)
+    private List<Engineer> engineers;
+
+    public LazySquad() {}
+
+    public List<Engineer> getEngineers() {
+        return engineers;
+    }
+}
@@ -0,0 +1,19 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+
+import java.util.List;
+
+/**
+ * A root holding projects as members, whose manager references can't be resolved.
+ */
+public class Portfolio {
+    @HasMany
+    private List<Project> projects;
+
+    public Portfolio() {}
+
+    public List<Project> getProjects() {
+        return projects;
+    }
+}
@@ -0,0 +1,90 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasOne;
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbIgnore;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+/**
+ * A root referring to a manager which lives in the partition of its team rather than in the
+ * project's own.
+ */
+@DynamoDbBean
+public class Project {
+    public static final String ITEM_TYPE = "Project";
+    @HasOne(partitionKeyRef = "ManagerPk", sortKeyRef = "ManagerSk")
+    public Manager manager;
+    @ItemType(Project.ITEM_TYPE)
+    private String itemType;
+    private String projectId;
+    private String sortKey;
+    private String managerPk;
+    private String managerSk;
+
+    public Project() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Project(String projectId, Manager manager) {
+        this.projectId = projectId;
+        this.sortKey = ITEM_TYPE;
+        this.itemType = ITEM_TYPE;
+        this.managerPk = manager.getTeamId();
+        this.managerSk = manager.getSortKey();
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getProjectId() {
+        return projectId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    @DynamoDbAttribute("ManagerPk")
+    public String getManagerPk() {
+        return managerPk;
+    }
+
+    @DynamoDbAttribute("ManagerSk")
+    public String getManagerSk() {
+        return managerSk;
+    }
+
+    public void setProjectId(String projectId) {
+        this.projectId = projectId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+
+    public void setManagerPk(String managerPk) {
+        this.managerPk = managerPk;
+    }
+
+    public void setManagerSk(String managerSk) {
+        this.managerSk = managerSk;
+    }
+
+    @DynamoDbIgnore
+    public Manager getManager() {
+        return manager;
+    }
+}
@@ -0,0 +1,56 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+@DynamoDbBean
+public class Shift {
+    public static final String ITEM_TYPE = "Shift";
+    public static final String SORT_KEY_PREFIX = "SHIFT#";
+    private String squadId;
+    private String sortKey;
+    @ItemType(value = Shift.ITEM_TYPE, sortKeyPrefix = Shift.SORT_KEY_PREFIX)
+    private String itemType;
+
+    public Shift() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Shift(String squadId, String day, String engineer) {
+        this.squadId = squadId;
+        this.sortKey = SORT_KEY_PREFIX + day + "#" + engineer;
+        this.itemType = ITEM_TYPE;
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getSquadId() {
+        return squadId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setSquadId(String squadId) {
+        this.squadId = squadId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+}
@@ -0,0 +1,65 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.util.List;
+
+/**
+ * A root whose related engineers have relations of their own, all in the partition of the squad.
+ */
+@DynamoDbBean
+public class Squad {
+    public static final String ITEM_TYPE = "Squad";
+    public static final String SORT_KEY_PREFIX = "SQUAD";
+    @HasMany
+    public List<Engineer> engineers;
+    private String squadId;
+    private String sortKey;
+    @ItemType(value = Squad.ITEM_TYPE, sortKeyPrefix = Squad.SORT_KEY_PREFIX)
+    private String itemType;
+
+    public Squad() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Squad(String squadId, List<Engineer> engineers) {
+        this.squadId = squadId;
+        this.sortKey = SORT_KEY_PREFIX;
+        this.engineers = engineers;
+        this.itemType = ITEM_TYPE;
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getSquadId() {
+        return squadId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setSquadId(String squadId) {
+        this.squadId = squadId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+}
@@ -0,0 +1,80 @@
+package snorelabs.squilliam.core.models;
+
+import snorelabs.squilliam.core.annotations.HasMany;
+import snorelabs.squilliam.core.annotations.HasOne;
+import snorelabs.squilliam.core.annotations.ItemType;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbIgnore;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.util.List;
+
+/**
+ * A root laid out with a sort key prefix per item type, e.g. TEAM, EMP#Bob and MGR#Alice all in
+ * the partition of the team.
+ */
+@DynamoDbBean
+public class Team {
+    public static final String ITEM_TYPE = "Team";
+    @HasMany
+    public List<Employee> employees;
+    @HasOne
+    public Manager manager;
+    @ItemType(Team.ITEM_TYPE)
+    private String itemType;
+    private String teamId;
+    private String sortKey;
+
+    public Team() {
+        this.itemType = ITEM_TYPE;
+    }
+
+    public Team(String teamId, List<Employee> employees, Manager manager) {
+        this.teamId = teamId;
+        this.sortKey = ITEM_TYPE;
+        this.itemType = ITEM_TYPE;
+        this.employees = employees;
+        this.manager = manager;
+    }
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("Pk")
+    public String getTeamId() {
+        return teamId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("Sk")
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    @DynamoDbAttribute("ItemType")
+    public String getItemType() {
+        return itemType;
+    }
+
+    public void setTeamId(String teamId) {
+        this.teamId = teamId;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public void setItemType(String itemType) {
+        this.itemType = itemType;
+    }
+
+    @DynamoDbIgnore
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    @DynamoDbIgnore
+    public Manager getManager() {
+        return manager;
+    }
+}
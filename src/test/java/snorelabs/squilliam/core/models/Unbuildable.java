@@ -0,0 +1,7 @@
+package snorelabs.squilliam.core.models;
+
+public class Unbuildable {
+    public Unbuildable() {
+        throw new IllegalStateException("Not today");
+    }
+}